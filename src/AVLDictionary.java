@@ -0,0 +1,149 @@
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * <p>The implementation of Dictionary as an AVL Tree of Word. Note that adding 
+ * an element requires two String arguments as this class handles duplicate 
+ * entries on its own and as such, it does not need to create an instance of 
+ * Word with a PartOfSpeech attached to it.</p>
+ *
+ * <p>As removing an element is not an operation supposed to be needed at any 
+ * moment in the application, it has not been implemented at all.</p>
+ */
+public class AVLDictionary extends AVLTree<Word> implements Dictionary
+{
+	/**
+	 * Creates a new empty instance of AVLDictionary.
+	 */
+	public AVLDictionary()
+	{
+		super();
+	}
+	
+	/**
+	 * Adds an occurrence of Word-PartOfSpeech couple while keeping the shape 
+	 * of a BST and avoiding duplicate entries of Word.
+	 * @param word The value of the word encountered in the corpus
+	 * @param pos The value of the part of speech encountered in the corpus
+	 */
+	@Override
+	public void add(String word, String pos)
+	{
+		if (word.isEmpty() || pos.isEmpty())
+			throw new IllegalArgumentException();
+		this.findOrInsert(word).addPartOfSpeech(pos);
+	}
+	
+	/**
+	 * Adds several occurrences of a Word-PartOfSpeech couple at once. It 
+	 * behaves as many calls to add(String, String) would.
+	 * @param word The value of the word
+	 * @param pos The value of the part of speech
+	 * @param occurrences The number of occurrences to be added
+	 */
+	@Override
+	public void add(String word, String pos, int occurrences)
+	{
+		if (word.isEmpty() || pos.isEmpty())
+			throw new IllegalArgumentException();
+		this.findOrInsert(word).addPartOfSpeech(pos, occurrences);
+	}
+	
+	/**
+	 * Returns an iterator over every Word of the Dictionary, in alphabetical 
+	 * order. The Dictionary must not be modified during the iteration.
+	 * @return An iterator over every Word of the Dictionary.
+	 */
+	@Override
+	public Iterator<Word> iterator()
+	{
+		return new InOrderIterator(this.root);
+	}
+	
+	/**
+	 * Creates a new Word with no part of speech yet, as required by 
+	 * findOrInsert().
+	 * @param target The value of the word.
+	 * @return A new instance of Word.
+	 * @see AVLTree#findOrInsert(String)
+	 */
+	@Override
+	protected Word createNode(String target)
+	{
+		return new Word(target);
+	}
+	
+	/**
+	 * An iterator browsing the tree in order. The path from the root to the 
+	 * next Word is kept in a stack, so that the tree does not need to be 
+	 * browsed again from the top.
+	 */
+	private static class InOrderIterator implements Iterator<Word>
+	{
+		/**
+		 * Creates a new iterator over the tree whose root is given.
+		 * @param root The root of the tree, or null if the tree is empty.
+		 */
+		public InOrderIterator(Word root)
+		{
+			this.path = new ArrayDeque<Word>();
+			this.pushLeft(root);
+		}
+		
+		/**
+		 * Checks whether there is a Word left to browse.
+		 * @return True if there is a next Word, false otherwise.
+		 */
+		@Override
+		public boolean hasNext()
+		{
+			return !this.path.isEmpty();
+		}
+		
+		/**
+		 * Returns the next Word in alphabetical order.
+		 * @return The next Word.
+		 * @throws NoSuchElementException If every Word has been browsed.
+		 */
+		@Override
+		public Word next()
+		{
+			if (this.path.isEmpty())
+				throw new NoSuchElementException();
+			Word w = this.path.pop();
+			if (w.hasRight())
+				this.pushLeft(w.right());
+			return w;
+		}
+		
+		/**
+		 * This operation is not supported.
+		 * @throws UnsupportedOperationException
+		 */
+		@Override
+		public void remove()
+		{
+			throw new UnsupportedOperationException();
+		}
+		
+		/**
+		 * Stacks the given node and its whole leftmost branch.
+		 * @param node The node to start from, or null.
+		 */
+		private void pushLeft(Word node)
+		{
+			while (node != null)
+			{
+				this.path.push(node);
+				node = (node.hasLeft() ? node.left() : null);
+			}
+		}
+		
+		/**
+		 * The nodes whose left subtree has been browsed but which have not 
+		 * been returned yet. The next Word is at the top.
+		 */
+		private final ArrayDeque<Word> path;
+	}
+}
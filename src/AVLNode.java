@@ -21,6 +21,7 @@ public abstract class AVLNode<T extends AVLNode<T>> implements Comparable<T>
 	{
 		this.left = null;
 		this.right = null;
+		this.height = 0;
 	}
 	
 	/**
@@ -31,16 +32,17 @@ public abstract class AVLNode<T extends AVLNode<T>> implements Comparable<T>
 	@SuppressWarnings("unchecked")
 	public T balance()
 	{
+		this.updateHeight();
 		if (this.leftHeight() - this.rightHeight() == 2)
 		{
-			T l = this.left();
+			AVLNode<T> l = this.left();
 			if (l.rightHeight() > l.leftHeight())
 				this.setLeft(l.rotateLeft());
 			return this.rotateRight();
 		}
 		else if (this.rightHeight() - this.leftHeight() == 2)
 		{
-			T r = this.right();
+			AVLNode<T> r = this.right();
 			if (r.leftHeight() > r.rightHeight())
 				this.setRight(r.rotateRight());
 			return this.rotateLeft();
@@ -162,26 +164,16 @@ public abstract class AVLNode<T extends AVLNode<T>> implements Comparable<T>
 	
 	
 	/**
-	 * Returns the height of the tree
+	 * Returns the height of the tree. The value is stored in the node and kept 
+	 * up to date by balance() and the rotations, so that it does not need to 
+	 * browse the whole subtree.
 	 * @return The length of the longest branch in the tree, starting from 
 	 * the current tree.
+	 * @see AVLNode#updateHeight()
 	 */
-	private int height()
+	public int height()
 	{
-		if (this.isLeaf())
-			return 0;		
-		else
-		{
-			int max = 0;
-			if (this.hasLeft())
-				max = this.left().height();
-			if (this.hasRight())
-			{
-				int r = this.right().height();
-				max = (r > max ? r : max);
-			}
-			return max + 1;
-		}
+		return this.height;
 	}
 	
 	/**
@@ -194,7 +186,7 @@ public abstract class AVLNode<T extends AVLNode<T>> implements Comparable<T>
 		if (!this.hasLeft())
 			return -1;
 		else
-			return this.left().height();
+			return this.left.height();
 	}
 	
 	/**
@@ -207,7 +199,7 @@ public abstract class AVLNode<T extends AVLNode<T>> implements Comparable<T>
 		if (!this.hasRight())
 			return -1;
 		else
-			return this.right().height();
+			return this.right.height();
 	}
 	
 	/**
@@ -219,11 +211,14 @@ public abstract class AVLNode<T extends AVLNode<T>> implements Comparable<T>
 	private T rotateLeft()
 	{
 		T pivot = this.right();
-		if (pivot.hasLeft())
-			this.setRight(pivot.left());
+		AVLNode<T> p = pivot;
+		if (p.hasLeft())
+			this.setRight(p.left());
 		else
 			this.unlinkRight();
-		pivot.setLeft((T) this);
+		p.setLeft((T) this);
+		this.updateHeight();
+		p.updateHeight();
 		return pivot;
 	}
 	
@@ -236,14 +231,29 @@ public abstract class AVLNode<T extends AVLNode<T>> implements Comparable<T>
 	private T rotateRight()
 	{
 		T pivot = this.left();
-		if (pivot.hasRight())
-			this.setLeft(pivot.right());
+		AVLNode<T> p = pivot;
+		if (p.hasRight())
+			this.setLeft(p.right());
 		else
 			this.unlinkLeft();
-		pivot.setRight((T) this);
+		p.setRight((T) this);
+		this.updateHeight();
+		p.updateHeight();
 		return pivot;
 	}
 	
+	/**
+	 * Recomputes the height of the tree from the heights stored in its 
+	 * daughters. It must be called whenever a daughter has been changed.
+	 * @see AVLNode#height
+	 */
+	private void updateHeight()
+	{
+		int l = this.leftHeight();
+		int r = this.rightHeight();
+		this.height = (l > r ? l : r) + 1;
+	}
+	
 	/**
 	 * This node's left daughter in the BST. It must be lesser than the current 
 	 * object in terms of stored data.
@@ -255,4 +265,12 @@ public abstract class AVLNode<T extends AVLNode<T>> implements Comparable<T>
 	 * current object in terms of stored data.
 	 */
 	private volatile T right;
+	
+	/**
+	 * The length of the longest branch starting from this node, 0 for a leaf. 
+	 * It is updated by balance() and by the rotations.
+	 * @see AVLNode#height()
+	 * @see AVLNode#updateHeight()
+	 */
+	private int height;
 }
@@ -29,12 +29,65 @@ public abstract class AVLTree<T extends AVLNode<T>>
 	 * which is identical to the target argument -- i.e. to which the equals() 
 	 * method should return true.
 	 * @throws NoSuchElementException If there is no such node.
+	 * @see AVLTree#lookup(String)
 	 */
 	public T find(String target) throws NoSuchElementException
 	{
-		if (this.root == null)
+		T result = this.lookup(target);
+		if (result == null)
 			throw new NoSuchElementException();
-		return this.findRec(target, this.root);
+		return result;
+	}
+	
+	/**
+	 * Finds and returns a node in the tree. Unlike find(), a missing node is 
+	 * not an exceptional case here, which makes this method suitable for 
+	 * looking up words that may well be unknown.
+	 * @param target The String representation of the AVLNode that should be 
+	 * returned.
+	 * @return The specialized instance of AVLNode whose String representation 
+	 * is identical to the target argument, or null if there is no such node.
+	 */
+	public T lookup(String target)
+	{
+		return this.search(target);
+	}
+	
+	/**
+	 * Checks that the tree is a valid AVL: every node must be greater than its 
+	 * left daughter and lesser than its right daughter, the height stored in 
+	 * each node must be the actual length of its longest branch, and the 
+	 * heights of two sister subtrees cannot differ by more than one. This 
+	 * browses the whole tree and is only meant for debugging purposes.
+	 * @throws IllegalStateException If any of these conditions is not met.
+	 */
+	public void checkInvariants() throws IllegalStateException
+	{
+		T top = this.root;
+		if (top != null)
+			this.checkRec(top, null, null);
+	}
+	
+	/**
+	 * Finds and returns a node in the tree, or creates and inserts it if there 
+	 * is none. Unlike push(), this does not instantiate anything if the node 
+	 * already exists. The tree is first searched without any lock nor any 
+	 * modification, so that finding a node that already exists, which is by 
+	 * far the most common case while learning, costs no more than lookup(); 
+	 * it is only browsed again, under the lock, to insert a missing node.
+	 * @param target The String representation of the AVLNode that should be 
+	 * returned.
+	 * @return The specialized instance of AVLNode whose String representation 
+	 * is identical to the target argument, be it already in the tree or newly 
+	 * created through createNode().
+	 * @see AVLTree#createNode(String)
+	 */
+	public T findOrInsert(String target)
+	{
+		T result = this.search(target);
+		if (result != null)
+			return result;
+		return this.insert(target);
 	}
 	
 	/**
@@ -45,7 +98,7 @@ public abstract class AVLTree<T extends AVLNode<T>>
 	 * @throws NodeAlreadyExistsException If there already is an identical node
 	 * (i.e. to which equals() returns true).
 	 */
-	public void push(T target) throws NodeAlreadyExistsException
+	public synchronized void push(T target) throws NodeAlreadyExistsException
 	{
 		if (this.root == null)
 			this.root = target;
@@ -54,26 +107,146 @@ public abstract class AVLTree<T extends AVLNode<T>>
 	}
 	
 	/**
-	 * The recursive method used by find(). 
-	 * @param target The string representation of the node that should be 
-	 * returned.
+	 * Replaces the content of the tree by the given nodes, which are linked 
+	 * bottom-up into a perfectly balanced tree in linear time, rather than 
+	 * inserted one at a time with as many rotations. The middle node of each 
+	 * range becomes its root, so that the shape of the tree only depends on 
+	 * the number of nodes.
+	 * @param sorted The nodes, in ascending order and without duplicates. 
+	 * Their former links are discarded.
+	 */
+	protected synchronized void build(T[] sorted)
+	{
+		if (sorted.length == 0)
+			this.root = null;
+		else
+			this.root = this.buildRec(sorted, 0, sorted.length);
+	}
+	
+	/**
+	 * Creates a new, unlinked node whose String representation is the target 
+	 * argument. It is called by findOrInsert() when no such node exists yet.
+	 * @param target The String representation of the node to be created.
+	 * @return A new specialized instance of AVLNode.
+	 * @see AVLTree#findOrInsert(String)
+	 */
+	protected abstract T createNode(String target);
+	
+	/**
+	 * Inserts a node unless another thread has done so since it was searched 
+	 * for, browsing the tree once and rebalancing it on the way back up.
+	 * @param target The String representation of the node to be returned.
+	 * @return The node found or created.
+	 * @see AVLTree#findOrInsert(String)
+	 */
+	private synchronized T insert(String target)
+	{
+		if (this.root == null)
+		{
+			this.upserted = this.createNode(target);
+			this.root = this.upserted;
+		}
+		else
+			this.root = this.findOrInsertRec(target, this.root);
+		T result = this.upserted;
+		this.upserted = null;
+		return result;
+	}
+	
+	/**
+	 * The recursive method used by build().
+	 * @param sorted The nodes, in ascending order.
+	 * @param from The index of the first node of the range to be linked.
+	 * @param to The index following the last node of the range, which must 
+	 * not be empty.
+	 * @return The root of the balanced tree holding the range.
+	 * 
+	 * @see AVLTree#build(AVLNode[])
+	 */
+	private T buildRec(T[] sorted, int from, int to)
+	{
+		int middle = (from + to) >>> 1;
+		T pin = sorted[middle];
+		if (from < middle)
+			pin.setLeft(this.buildRec(sorted, from, middle));
+		else
+			pin.unlinkLeft();
+		if (middle + 1 < to)
+			pin.setRight(this.buildRec(sorted, middle + 1, to));
+		else
+			pin.unlinkRight();
+		return pin.balance();
+	}
+	
+	/**
+	 * The recursive method used by checkInvariants().
 	 * @param root The root of the tree we will consider.
-	 * @return A specialized instance of AVLNode.
-	 * @throws NoSuchElementException If no such node could be found.
+	 * @param min The node all of the tree must be greater than, or null.
+	 * @param max The node all of the tree must be lesser than, or null.
+	 * @return The actual height of the tree.
+	 * @throws IllegalStateException If the tree is not a valid AVL.
 	 * 
-	 * @see Dictionary#find(String)
+	 * @see AVLTree#checkInvariants()
 	 */
-	private T findRec(String target, T root)
-		throws NoSuchElementException
+	private int checkRec(T root, T min, T max) throws IllegalStateException
 	{
-		if (root.equals(target))
-			return root;
-		else if (root.isLeaf())
-			throw new NoSuchElementException();
-		else if (root.toString().compareTo(target) > 0)
-			return this.findRec(target, (T) root.left());
+		if (min != null && root.compareTo(min) <= 0)
+			throw new IllegalStateException("Misplaced node: " + root);
+		if (max != null && root.compareTo(max) >= 0)
+			throw new IllegalStateException("Misplaced node: " + root);
+		int l = -1;
+		int r = -1;
+		if (root.hasLeft())
+			l = this.checkRec(root.left(), min, root);
+		if (root.hasRight())
+			r = this.checkRec(root.right(), root, max);
+		int height = (l > r ? l : r) + 1;
+		if (root.height() != height)
+			throw new IllegalStateException("Wrong height stored in node: " 
+					+ root);
+		if (l - r > 1 || r - l > 1)
+			throw new IllegalStateException("Unbalanced node: " + root);
+		return height;
+	}
+	
+	/**
+	 * The recursive method used by findOrInsert(). The node found or created 
+	 * is stored in the upserted attribute rather than returned.
+	 * @param target The String representation of the node we are looking for.
+	 * @param pin The root of the BST we will consider.
+	 * @return The new root of the BST after balancing.
+	 * 
+	 * @see AVLTree#findOrInsert(String)
+	 */
+	private T findOrInsertRec(String target, T pin)
+	{
+		int c = pin.toString().compareTo(target);
+		if (c == 0)
+		{
+			this.upserted = pin;
+			return pin;
+		}
+		else if (c > 0)
+		{
+			if (pin.hasLeft())
+				pin.setLeft(this.findOrInsertRec(target, pin.left()));
+			else
+			{
+				this.upserted = this.createNode(target);
+				pin.setLeft(this.upserted);
+			}
+		}
 		else
-			return this.findRec(target, (T) root.right());
+		{
+			if (pin.hasRight())
+				pin.setRight(this.findOrInsertRec(target, pin.right()));
+			else
+			{
+				this.upserted = this.createNode(target);
+				pin.setRight(this.upserted);
+			}
+		}
+		return pin.balance();
 	}
 	
 	/**
@@ -86,7 +259,7 @@ public abstract class AVLTree<T extends AVLNode<T>>
 	 * 
 	 * @see Dictionary#push(Word)
 	 */
-	private synchronized T pushRec(T target, T pin) 
+	private T pushRec(T target, T pin) 
 			throws NodeAlreadyExistsException
 	{
 		if (pin.equals(target))
@@ -108,8 +281,40 @@ public abstract class AVLTree<T extends AVLNode<T>>
 		return pin.balance();
 	}
 	
+	/**
+	 * Browses the tree iteratively, with a single comparison per level, 
+	 * without modifying it.
+	 * @param target The String representation of the node to be returned.
+	 * @return The node whose String representation is identical to the 
+	 * target argument, or null if there is no such node.
+	 * @see AVLTree#lookup(String)
+	 * @see AVLTree#findOrInsert(String)
+	 */
+	private T search(String target)
+	{
+		T current = this.root;
+		while (current != null)
+		{
+			int c = current.toString().compareTo(target);
+			if (c == 0)
+				return current;
+			else if (c > 0)
+				current = (current.hasLeft() ? current.left() : null);
+			else
+				current = (current.hasRight() ? current.right() : null);
+		}
+		return null;
+	}
+	
 	/**
 	 * The root of the BST.
 	 */
 	protected volatile T root;
+	
+	/**
+	 * The node found or created by the last call to findOrInsertRec(). It is 
+	 * only meaningful during a call to findOrInsert().
+	 * @see AVLTree#findOrInsert(String)
+	 */
+	private T upserted;
 }
@@ -0,0 +1,757 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * <p>The implementation of Dictionary as a B+ Tree of Word, whose nodes hold 
+ * up to a few dozen words rather than a single one. The tree is thus only a 
+ * few levels deep even for millions of words, and a lookup reads a handful of 
+ * nodes instead of following a pointer per level of a binary tree.</p>
+ *
+ * <p>The keys of a node are not kept as String: their characters are packed 
+ * one after the other in a single array of char, the prefix shared by every 
+ * key of the node being stored only once, at its beginning. A node is 
+ * searched by binary search over this array, without reading any other 
+ * object. The Words themselves are only stored in the leaves, which are 
+ * chained in order; the inner nodes only keep the shortest prefix of the 
+ * first key of each leaf needed to tell it from the previous one.</p>
+ *
+ * <p>Occurrences can be added by several threads at once, but the Dictionary 
+ * must not be read meanwhile, as a node may be modified while it is being 
+ * searched. As removing an element is not an operation supposed to be needed 
+ * at any moment in the application, it has not been implemented at all.</p>
+ */
+public class BTreeDictionary implements Dictionary
+{
+	/**
+	 * Creates a new empty instance of BTreeDictionary.
+	 */
+	public BTreeDictionary()
+	{
+		this.root = new Node(true);
+		this.upserted = null;
+		this.separator = null;
+	}
+	
+	/**
+	 * Adds an occurrence of Word-PartOfSpeech couple while avoiding duplicate 
+	 * entries of Word.
+	 * @param word The value of the word encountered in the corpus
+	 * @param pos The value of the part of speech encountered in the corpus
+	 */
+	@Override
+	public void add(String word, String pos)
+	{
+		if (word.isEmpty() || pos.isEmpty())
+			throw new IllegalArgumentException();
+		this.findOrInsert(word).addPartOfSpeech(pos);
+	}
+	
+	/**
+	 * Adds several occurrences of a Word-PartOfSpeech couple at once. It 
+	 * behaves as many calls to add(String, String) would.
+	 * @param word The value of the word
+	 * @param pos The value of the part of speech
+	 * @param occurrences The number of occurrences to be added
+	 */
+	@Override
+	public void add(String word, String pos, int occurrences)
+	{
+		if (word.isEmpty() || pos.isEmpty())
+			throw new IllegalArgumentException();
+		this.findOrInsert(word).addPartOfSpeech(pos, occurrences);
+	}
+	
+	/**
+	 * Checks that the tree is a valid B+ Tree: every node but the root must 
+	 * hold between one key and as many as its capacity, in ascending order, 
+	 * its common prefix must be exactly the one its first and last keys 
+	 * share, the keys of each daughter must lie between the keys surrounding 
+	 * it, every leaf must be at the same depth, and the chain of leaves must 
+	 * link them all in order. This browses the whole tree and is only meant 
+	 * for debugging purposes.
+	 * @throws IllegalStateException If any of these conditions is not met.
+	 */
+	public void checkInvariants() throws IllegalStateException
+	{
+		List<Node> leaves = new ArrayList<Node>();
+		this.checkRec(this.root, null, null, leaves);
+		Node leaf = leaves.get(0);
+		for (Node expected : leaves)
+		{
+			if (leaf != expected)
+				throw new IllegalStateException("Broken chain of leaves");
+			leaf = leaf.next;
+		}
+		if (leaf != null)
+			throw new IllegalStateException("Broken chain of leaves");
+	}
+	
+	/**
+	 * Finds and returns a word in the dictionary.
+	 * @param target The value of the word that should be returned.
+	 * @return The Word whose value is identical to the target argument.
+	 * @throws NoSuchElementException If there is no such Word.
+	 * @see BTreeDictionary#lookup(String)
+	 */
+	@Override
+	public Word find(String target) throws NoSuchElementException
+	{
+		Word result = this.lookup(target);
+		if (result == null)
+			throw new NoSuchElementException();
+		return result;
+	}
+	
+	/**
+	 * Returns an iterator over every Word of the Dictionary, in alphabetical 
+	 * order, following the chain of leaves. The Dictionary must not be 
+	 * modified during the iteration.
+	 * @return An iterator over every Word of the Dictionary.
+	 */
+	@Override
+	public Iterator<Word> iterator()
+	{
+		Node first = this.root;
+		while (first.children != null)
+			first = first.children[0];
+		return new LeafIterator(first);
+	}
+	
+	/**
+	 * Finds and returns a word in the dictionary, without considering a 
+	 * missing word as an exceptional case.
+	 * @param target The value of the word that should be returned.
+	 * @return The Word whose value is identical to the target argument, or 
+	 * null if there is no such Word.
+	 */
+	@Override
+	public Word lookup(String target)
+	{
+		Node current = this.root;
+		while (current.children != null)
+			current = current.children[current.child(target)];
+		int i = current.search(target);
+		return (i >= 0 ? current.words[i] : null);
+	}
+	
+	/**
+	 * The recursive method used by checkInvariants().
+	 * @param node The root of the subtree we will consider.
+	 * @param min The key every key of the subtree must be greater than or 
+	 * equal to, or null.
+	 * @param max The key every key of the subtree must be lesser than, or 
+	 * null.
+	 * @param leaves The list the leaves of the subtree are added to, in 
+	 * order.
+	 * @return The depth of the leaves of the subtree.
+	 * @throws IllegalStateException If the subtree is not a valid B+ Tree.
+	 * 
+	 * @see BTreeDictionary#checkInvariants()
+	 */
+	private int checkRec(Node node, String min, String max, List<Node> leaves)
+			throws IllegalStateException
+	{
+		if (node.size > BTreeDictionary.capacity
+				|| (node.size == 0 && node != this.root))
+			throw new IllegalStateException("Wrong size of node: " 
+					+ node.size);
+		String[] keys = new String[node.size];
+		for (int i = 0 ; i < node.size ; i++)
+		{
+			keys[i] = node.key(i);
+			if ((i > 0 && keys[i].compareTo(keys[i - 1]) <= 0)
+					|| (i == 0 && min != null && keys[i].compareTo(min) < 0)
+					|| (max != null && keys[i].compareTo(max) >= 0)
+					|| node.search(keys[i]) != i)
+				throw new IllegalStateException("Misplaced key: " + keys[i]);
+		}
+		if (node.size > 0)
+		{
+			String first = keys[0];
+			String last = keys[node.size - 1];
+			int n = Math.min(first.length(), last.length());
+			int common = 0;
+			while (common < n && first.charAt(common) == last.charAt(common))
+				common++;
+			if (node.prefix != common)
+				throw new IllegalStateException("Wrong prefix in node: " 
+						+ first);
+		}
+		if (node.children == null)
+		{
+			for (int i = 0 ; i < node.size ; i++)
+				if (!node.words[i].toString().equals(keys[i]))
+					throw new IllegalStateException("Wrong Word of key: " 
+							+ keys[i]);
+			leaves.add(node);
+			return 0;
+		}
+		int depth = -1;
+		for (int i = 0 ; i <= node.size ; i++)
+		{
+			int d = this.checkRec(node.children[i], 
+					(i == 0 ? min : keys[i - 1]), 
+					(i == node.size ? max : keys[i]), leaves);
+			if (depth != -1 && d != depth)
+				throw new IllegalStateException("Leaves at different depths");
+			depth = d;
+		}
+		return depth + 1;
+	}
+	
+	/**
+	 * Finds and returns a Word, or creates and inserts it if there is none. 
+	 * The tree grows by one level when its root is split.
+	 * @param target The value of the word that should be returned.
+	 * @return The Word whose value is identical to the target argument, be it 
+	 * already in the tree or newly created.
+	 */
+	private synchronized Word findOrInsert(String target)
+	{
+		Node right = this.findOrInsertRec(this.root, target);
+		if (right != null)
+		{
+			Node top = new Node(false);
+			top.children[0] = this.root;
+			top.insertChild(0, this.separator, right);
+			this.root = top;
+		}
+		Word result = this.upserted;
+		this.upserted = null;
+		this.separator = null;
+		return result;
+	}
+	
+	/**
+	 * The recursive method used by findOrInsert(). The Word found or created 
+	 * is stored in the upserted attribute rather than returned; when the 
+	 * node is split, the key separating both halves is stored in the 
+	 * separator attribute.
+	 * @param node The root of the subtree we will consider.
+	 * @param target The value of the word we are looking for.
+	 * @return The node holding the upper half of the former node if it has 
+	 * been split, or null.
+	 * @see BTreeDictionary#findOrInsert(String)
+	 */
+	private Node findOrInsertRec(Node node, String target)
+	{
+		if (node.children == null)
+		{
+			int i = node.search(target);
+			if (i >= 0)
+			{
+				this.upserted = node.words[i];
+				return null;
+			}
+			this.upserted = new Word(target);
+			node.insertWord(-i - 1, target, this.upserted);
+			if (node.size <= BTreeDictionary.capacity)
+				return null;
+			Node right = node.split(node.size / 2, node.size / 2);
+			this.separator = BTreeDictionary.separator(node, right);
+			return right;
+		}
+		int c = node.child(target);
+		Node right = this.findOrInsertRec(node.children[c], target);
+		if (right == null)
+			return null;
+		node.insertChild(c, this.separator, right);
+		if (node.size <= BTreeDictionary.capacity)
+			return null;
+		int middle = node.size / 2;
+		this.separator = node.key(middle);
+		return node.split(middle, middle + 1);
+	}
+	
+	/**
+	 * Computes the shortest key separating two neighbouring leaves, i.e. the 
+	 * shortest prefix of the first key of the right one which is greater 
+	 * than the last key of the left one.
+	 * @param left The left leaf, which must not be empty.
+	 * @param right The right leaf, which must not be empty.
+	 * @return The separator, greater than every key of the left leaf and 
+	 * lesser than or equal to every key of the right one.
+	 */
+	private static String separator(Node left, Node right)
+	{
+		int last = left.size - 1;
+		String first = right.key(0);
+		int n = Math.min(left.length(last), first.length());
+		int common = 0;
+		while (common < n && left.charAt(last, common) == first.charAt(common))
+			common++;
+		return first.substring(0, common + 1);
+	}
+	
+	/**
+	 * A node of the tree. Its keys are sorted and packed into a single array 
+	 * of char, their common prefix first, then the rest of each key in 
+	 * order. A leaf holds the Word of each key and the next leaf; an inner 
+	 * node holds one more daughter than it has keys, the keys of daughter i 
+	 * being lesser than key i and greater than or equal to key i-1.
+	 */
+	private static class Node
+	{
+		/**
+		 * Creates a new empty node.
+		 * @param leaf Whether the node is a leaf.
+		 */
+		public Node(boolean leaf)
+		{
+			this.chars = new char[0];
+			this.ends = new int[BTreeDictionary.capacity + 1];
+			this.prefix = 0;
+			this.size = 0;
+			if (leaf)
+			{
+				this.words = new Word[BTreeDictionary.capacity + 1];
+				this.children = null;
+			}
+			else
+			{
+				this.words = null;
+				this.children = new Node[BTreeDictionary.capacity + 2];
+			}
+			this.next = null;
+		}
+		
+		/**
+		 * Returns one character of a key.
+		 * @param i The index of the key.
+		 * @param j The position of the character in the key.
+		 * @return The character.
+		 */
+		public char charAt(int i, int j)
+		{
+			if (j < this.prefix)
+				return this.chars[j];
+			return this.chars[this.start(i) + j - this.prefix];
+		}
+		
+		/**
+		 * Returns the index of the daughter of an inner node in which a value 
+		 * should be looked for.
+		 * @param target The value looked for.
+		 * @return The number of keys lesser than or equal to the target.
+		 */
+		public int child(String target)
+		{
+			int i = this.search(target);
+			return (i >= 0 ? i + 1 : -i - 1);
+		}
+		
+		/**
+		 * Inserts a key and the daughter following it into an inner node.
+		 * @param index The index of the new key.
+		 * @param key The new key.
+		 * @param daughter The daughter holding the keys from the new key on.
+		 */
+		public void insertChild(int index, String key, Node daughter)
+		{
+			System.arraycopy(this.children, index + 1, this.children,
+					index + 2, this.size - index);
+			this.children[index + 1] = daughter;
+			this.insertKey(index, key);
+		}
+		
+		/**
+		 * Inserts a key and its Word into a leaf.
+		 * @param index The index of the new key.
+		 * @param key The new key.
+		 * @param w The Word of the new key.
+		 */
+		public void insertWord(int index, String key, Word w)
+		{
+			System.arraycopy(this.words, index, this.words, index + 1,
+					this.size - index);
+			this.words[index] = w;
+			this.insertKey(index, key);
+		}
+		
+		/**
+		 * Builds a key as a String.
+		 * @param i The index of the key.
+		 * @return The key.
+		 */
+		public String key(int i)
+		{
+			char[] result = new char[this.length(i)];
+			System.arraycopy(this.chars, 0, result, 0, this.prefix);
+			System.arraycopy(this.chars, this.start(i), result, this.prefix,
+					result.length - this.prefix);
+			return new String(result);
+		}
+		
+		/**
+		 * Returns the length of a key.
+		 * @param i The index of the key.
+		 * @return The number of characters of the key.
+		 */
+		public int length(int i)
+		{
+			return this.prefix + this.ends[i] - this.start(i);
+		}
+		
+		/**
+		 * Looks for a value among the keys of the node. The common prefix is 
+		 * compared first, which settles the search at once if the value does 
+		 * not start with it; otherwise, the rest of the keys is searched by 
+		 * dichotomy.
+		 * @param target The value looked for.
+		 * @return The index of the key equal to the target, if any; otherwise, 
+		 * (-(insertion point) - 1), the insertion point being the index of the 
+		 * first key greater than the target.
+		 */
+		public int search(String target)
+		{
+			int length = target.length();
+			for (int j = 0 ; j < this.prefix ; j++)
+			{
+				if (j == length)
+					return -1;
+				int c = this.chars[j] - target.charAt(j);
+				if (c > 0)
+					return -1;
+				else if (c < 0)
+					return -this.size - 1;
+			}
+			int low = 0;
+			int high = this.size - 1;
+			while (low <= high)
+			{
+				int middle = (low + high) >>> 1;
+				int c = this.compare(middle, target);
+				if (c < 0)
+					low = middle + 1;
+				else if (c > 0)
+					high = middle - 1;
+				else
+					return middle;
+			}
+			return -low - 1;
+		}
+		
+		/**
+		 * Splits the node in two, keeping its first keys and moving the last 
+		 * ones into a new node, which follows it in the chain of leaves.
+		 * @param keep The number of keys kept in this node.
+		 * @param from The index of the first key moved. For an inner node, 
+		 * the keys in between are dropped, and the daughters from the one 
+		 * following key keep on are moved.
+		 * @return The new node.
+		 */
+		public Node split(int keep, int from)
+		{
+			Node right = new Node(this.children == null);
+			int moved = this.size - from;
+			int[] picks = new int[moved];
+			for (int i = 0 ; i < moved ; i++)
+				picks[i] = from + i;
+			right.pack(this, picks, null);
+			if (this.children == null)
+			{
+				System.arraycopy(this.words, from, right.words, 0, moved);
+				for (int i = keep ; i < this.words.length ; i++)
+					this.words[i] = null;
+				right.next = this.next;
+				this.next = right;
+			}
+			else
+			{
+				System.arraycopy(this.children, from, right.children, 0,
+						moved + 1);
+				for (int i = keep + 1 ; i < this.children.length ; i++)
+					this.children[i] = null;
+			}
+			picks = new int[keep];
+			for (int i = 0 ; i < keep ; i++)
+				picks[i] = i;
+			this.pack(this, picks, null);
+			return right;
+		}
+		
+		/**
+		 * Compares a key with a value starting with the common prefix of the 
+		 * node, from the end of the prefix on.
+		 * @param i The index of the key.
+		 * @param target The value to be compared with.
+		 * @return A negative integer, zero, or a positive integer as the key 
+		 * is lesser than, equal to, or greater than the target, as 
+		 * String.compareTo(String) would.
+		 */
+		private int compare(int i, String target)
+		{
+			int length = target.length();
+			int j = this.prefix;
+			for (int k = this.start(i) ; k < this.ends[i] ; k++, j++)
+			{
+				if (j == length)
+					return 1;
+				int c = this.chars[k] - target.charAt(j);
+				if (c != 0)
+					return c;
+			}
+			return (j == length ? 0 : -1);
+		}
+		
+		/**
+		 * Inserts a key. If it starts with the common prefix of the node, the 
+		 * rest of the key is inserted in place, the array of char growing by 
+		 * doubling its size when needed; otherwise, every key is packed again 
+		 * with a shorter prefix.
+		 * @param index The index of the new key.
+		 * @param key The new key.
+		 */
+		private void insertKey(int index, String key)
+		{
+			int common = 0;
+			int n = Math.min(this.prefix, key.length());
+			while (common < n && this.chars[common] == key.charAt(common))
+				common++;
+			if (this.size > 0 && common == this.prefix)
+			{
+				int used = this.ends[this.size - 1];
+				int extra = key.length() - this.prefix;
+				if (used + extra > this.chars.length)
+					this.chars = Arrays.copyOf(this.chars, 
+							Math.max(2 * this.chars.length, used + extra));
+				int at = this.start(index);
+				System.arraycopy(this.chars, at, this.chars, at + extra, 
+						used - at);
+				key.getChars(this.prefix, key.length(), this.chars, at);
+				for (int i = this.size ; i > index ; i--)
+					this.ends[i] = this.ends[i - 1] + extra;
+				this.ends[index] = at + extra;
+				this.size++;
+				return;
+			}
+			int[] picks = new int[this.size + 1];
+			for (int i = 0 ; i < picks.length ; i++)
+				picks[i] = (i < index ? i : i - 1);
+			picks[index] = -1;
+			this.pack(this, picks, key);
+		}
+		
+		/**
+		 * Replaces the keys of the node by keys picked from a node, possibly 
+		 * this one, and a new key. Their common prefix is computed again.
+		 * @param source The node the keys are picked from.
+		 * @param picks The index in source of each key, in order, or -1 for 
+		 * the new key.
+		 * @param key The new key, or null if there is none.
+		 */
+		private void pack(Node source, int[] picks, String key)
+		{
+			int n = picks.length;
+			int common = 0;
+			if (n > 0)
+			{
+				int first = picks[0];
+				int last = picks[n - 1];
+				int length = Math.min(
+						Node.length(source, first, key),
+						Node.length(source, last, key));
+				while (common < length && Node.charAt(source, first, key,
+						common) == Node.charAt(source, last, key, common))
+					common++;
+			}
+			int total = common;
+			for (int i = 0 ; i < n ; i++)
+				total += Node.length(source, picks[i], key) - common;
+			char[] packed = new char[total];
+			int[] ends = new int[BTreeDictionary.capacity + 1];
+			for (int j = 0 ; j < common ; j++)
+				packed[j] = Node.charAt(source, picks[0], key, j);
+			int offset = common;
+			for (int i = 0 ; i < n ; i++)
+			{
+				int length = Node.length(source, picks[i], key);
+				for (int j = common ; j < length ; j++)
+					packed[offset++] = Node.charAt(source, picks[i], key, j);
+				ends[i] = offset;
+			}
+			this.chars = packed;
+			this.ends = ends;
+			this.prefix = common;
+			this.size = n;
+		}
+		
+		/**
+		 * Returns the offset in chars of the rest of a key, following the 
+		 * common prefix.
+		 * @param i The index of the key.
+		 * @return The offset of the first character of the key following the 
+		 * prefix.
+		 */
+		private int start(int i)
+		{
+			return (i == 0 ? this.prefix : this.ends[i - 1]);
+		}
+		
+		/**
+		 * Returns one character of a key picked by pack().
+		 * @param source The node the key is picked from.
+		 * @param i The index of the key in source, or -1 for the new key.
+		 * @param key The new key.
+		 * @param j The position of the character in the key.
+		 * @return The character.
+		 */
+		private static char charAt(Node source, int i, String key, int j)
+		{
+			return (i == -1 ? key.charAt(j) : source.charAt(i, j));
+		}
+		
+		/**
+		 * Returns the length of a key picked by pack().
+		 * @param source The node the key is picked from.
+		 * @param i The index of the key in source, or -1 for the new key.
+		 * @param key The new key.
+		 * @return The number of characters of the key.
+		 */
+		private static int length(Node source, int i, String key)
+		{
+			return (i == -1 ? key.length() : source.length(i));
+		}
+		
+		/**
+		 * The characters of the keys: their common prefix, then the rest of 
+		 * each key, in order. It may be longer than needed.
+		 */
+		private char[] chars;
+		
+		/**
+		 * The daughters of an inner node, or null for a leaf.
+		 */
+		private final Node[] children;
+		
+		/**
+		 * The offset in chars following the last character of each key.
+		 */
+		private int[] ends;
+		
+		/**
+		 * The leaf following this one in order, or null.
+		 */
+		private Node next;
+		
+		/**
+		 * The number of characters every key of the node starts with, which 
+		 * are stored only once.
+		 */
+		private int prefix;
+		
+		/**
+		 * The number of keys in the node.
+		 */
+		private int size;
+		
+		/**
+		 * The Word of each key of a leaf, or null for an inner node.
+		 */
+		private final Word[] words;
+	}
+	
+	/**
+	 * An iterator browsing the Words of the leaves, following their chain.
+	 */
+	private static class LeafIterator implements Iterator<Word>
+	{
+		/**
+		 * Creates an iterator starting at the first Word of a leaf.
+		 * @param first The first leaf of the tree.
+		 */
+		public LeafIterator(Node first)
+		{
+			this.leaf = first;
+			this.index = 0;
+			this.skip();
+		}
+		
+		/**
+		 * Checks whether there is a Word left to browse.
+		 * @return True if there is a next Word, false otherwise.
+		 */
+		@Override
+		public boolean hasNext()
+		{
+			return this.leaf != null;
+		}
+		
+		/**
+		 * Returns the next Word in alphabetical order.
+		 * @return The next Word.
+		 * @throws NoSuchElementException If every Word has been browsed.
+		 */
+		@Override
+		public Word next()
+		{
+			if (this.leaf == null)
+				throw new NoSuchElementException();
+			Word w = this.leaf.words[this.index++];
+			this.skip();
+			return w;
+		}
+		
+		/**
+		 * This operation is not supported.
+		 * @throws UnsupportedOperationException
+		 */
+		@Override
+		public void remove()
+		{
+			throw new UnsupportedOperationException();
+		}
+		
+		/**
+		 * Moves on to the next leaf holding a Word if every Word of the 
+		 * current one has been browsed.
+		 */
+		private void skip()
+		{
+			while (this.leaf != null && this.index >= this.leaf.size)
+			{
+				this.leaf = this.leaf.next;
+				this.index = 0;
+			}
+		}
+		
+		/**
+		 * The index of the next Word in the current leaf.
+		 */
+		private int index;
+		
+		/**
+		 * The leaf holding the next Word, or null if every Word has been 
+		 * browsed.
+		 */
+		private Node leaf;
+	}
+	
+	/**
+	 * The root of the tree, which is an empty leaf if the tree is empty.
+	 */
+	private Node root;
+	
+	/**
+	 * The key separating the halves of the node split by the last call to 
+	 * findOrInsertRec(), if any. It is only meaningful during a call to 
+	 * findOrInsert().
+	 * @see BTreeDictionary#findOrInsert(String)
+	 */
+	private String separator;
+	
+	/**
+	 * The Word found or created by the last call to findOrInsertRec(). It is 
+	 * only meaningful during a call to findOrInsert().
+	 * @see BTreeDictionary#findOrInsert(String)
+	 */
+	private Word upserted;
+	
+	/**
+	 * The maximum number of keys in a node, over which it is split.
+	 */
+	private static final int capacity = 64;
+}
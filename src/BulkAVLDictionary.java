@@ -0,0 +1,157 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * <p>An AVLDictionary filled in two phases, so that learning does not insert 
+ * the words into the tree one at a time. The occurrences are first counted 
+ * in a HashDictionary; when the Dictionary is first read, the words counted 
+ * are sorted, merged in a single pass with those already in the tree, and 
+ * the tree is linked again bottom-up, perfectly balanced, in linear time. 
+ * Its shape thus only depends on the number of words, and not on the order 
+ * they were learnt in.</p>
+ *
+ * <p>Adding a word after the tree has been read starts counting again, and 
+ * the tree is built again when it is next read, which is only worth it for 
+ * many additions at once. Occurrences cannot be added by several threads at 
+ * once; once built, the Dictionary can be read by several threads.</p>
+ *
+ * @see AVLTree#build(AVLNode[])
+ */
+public class BulkAVLDictionary extends AVLDictionary
+{
+	/**
+	 * Creates a new empty instance of BulkAVLDictionary.
+	 */
+	public BulkAVLDictionary()
+	{
+		super();
+		this.pending = null;
+	}
+	
+	/**
+	 * Adds an occurrence of Word-PartOfSpeech couple, which is only counted 
+	 * until the Dictionary is read.
+	 * @param word The value of the word encountered in the corpus
+	 * @param pos The value of the part of speech encountered in the corpus
+	 */
+	@Override
+	public void add(String word, String pos)
+	{
+		this.counts().add(word, pos);
+	}
+	
+	/**
+	 * Adds several occurrences of a Word-PartOfSpeech couple at once, which 
+	 * are only counted until the Dictionary is read. It behaves as many calls 
+	 * to add(String, String) would.
+	 * @param word The value of the word
+	 * @param pos The value of the part of speech
+	 * @param occurrences The number of occurrences to be added
+	 */
+	@Override
+	public void add(String word, String pos, int occurrences)
+	{
+		this.counts().add(word, pos, occurrences);
+	}
+	
+	/**
+	 * Returns an iterator over every Word of the Dictionary, in alphabetical 
+	 * order. The Dictionary must not be modified during the iteration.
+	 * @return An iterator over every Word of the Dictionary.
+	 */
+	@Override
+	public Iterator<Word> iterator()
+	{
+		if (this.pending != null)
+			this.flush();
+		return super.iterator();
+	}
+	
+	/**
+	 * Finds and returns a word in the dictionary, without considering a 
+	 * missing word as an exceptional case.
+	 * @param target The value of the word that should be returned.
+	 * @return The Word whose value is identical to the target argument, or 
+	 * null if there is no such Word.
+	 */
+	@Override
+	public Word lookup(String target)
+	{
+		if (this.pending != null)
+			this.flush();
+		return super.lookup(target);
+	}
+	
+	/**
+	 * Returns the HashDictionary in which occurrences are counted, creating 
+	 * it if the tree has been built since.
+	 * @return The HashDictionary holding the occurrences counted.
+	 */
+	private HashDictionary counts()
+	{
+		HashDictionary words = this.pending;
+		if (words == null)
+		{
+			words = new HashDictionary();
+			this.pending = words;
+		}
+		return words;
+	}
+	
+	/**
+	 * Merges the words counted since the tree was last built with those of 
+	 * the tree, then builds it again. The parts of speech of a word already 
+	 * in the tree are added to it in the order they first appeared, so that 
+	 * the result is the same as if they had been added to the tree directly.
+	 */
+	private synchronized void flush()
+	{
+		HashDictionary words = this.pending;
+		if (words == null)
+			return;
+		List<Word> added = new ArrayList<Word>();
+		for (Word w : words)
+			added.add(w);
+		Word[] sorted = added.toArray(new Word[added.size()]);
+		Arrays.sort(sorted);
+		List<Word> merged = new ArrayList<Word>();
+		Iterator<Word> current = super.iterator();
+		Word w = (current.hasNext() ? current.next() : null);
+		for (Word a : sorted)
+		{
+			while (w != null && w.compareTo(a) < 0)
+			{
+				merged.add(w);
+				w = (current.hasNext() ? current.next() : null);
+			}
+			if (w != null && w.compareTo(a) == 0)
+			{
+				for (int i = 0 ; i < a.size() ; i++)
+				{
+					int rank = a.rankByAppearance(i);
+					w.addPartOfSpeech(a.tag(rank), a.occurrences(rank));
+				}
+				merged.add(w);
+				w = (current.hasNext() ? current.next() : null);
+			}
+			else
+				merged.add(a);
+		}
+		while (w != null)
+		{
+			merged.add(w);
+			w = (current.hasNext() ? current.next() : null);
+		}
+		this.build(merged.toArray(new Word[merged.size()]));
+		this.pending = null;
+	}
+	
+	/**
+	 * The HashDictionary in which occurrences are counted until the tree is 
+	 * built, or null if nothing has been added since. It is cleared last when 
+	 * building, so that a thread reading it as null sees the new tree.
+	 */
+	private volatile HashDictionary pending;
+}
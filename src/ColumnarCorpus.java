@@ -0,0 +1,287 @@
+import java.util.NoSuchElementException;
+
+/**
+ * <p>A compact alternative to Corpus, storing its tokens in columns of 
+ * primitive arrays rather than as linked lists of Entry. Words and parts of 
+ * speech are replaced by their identifiers in two SymbolTable: the word of 
+ * each token is stored in an array of int, its part of speech in an array of 
+ * byte, and the sentences are given by the offset of their first token in an 
+ * array of int. Every array grows by doubling its size, which makes adding a 
+ * token constant in amortized time.</p>
+ *
+ * <p>As in a Corpus read from a file, the key of a sentence is its position 
+ * in the original text, from 0 on. As the identifier of a part of speech is 
+ * stored in a byte, there cannot be more than 256 distinct parts of speech.
+ * </p>
+ */
+public class ColumnarCorpus
+{
+	/**
+	 * Creates a new empty instance of ColumnarCorpus, with the default size 
+	 * stated in a static attribute.
+	 * @see ColumnarCorpus#defaultSize
+	 */
+	public ColumnarCorpus()
+	{
+		this.words = new int[ColumnarCorpus.defaultSize];
+		this.tags = new byte[ColumnarCorpus.defaultSize];
+		this.offsets = new int[ColumnarCorpus.defaultSize];
+		this.wordTable = new SymbolTable();
+		this.tagTable = new SymbolTable();
+		this.tokens = 0;
+		this.sentences = 0;
+	}
+	
+	/**
+	 * Creates a copy of a ColumnarCorpus in which the parts of speech are 
+	 * replaced. The words, the sentences and both SymbolTable are shared 
+	 * with the source, which must therefore not be modified anymore.
+	 * @param source The ColumnarCorpus to be copied.
+	 * @param tags The identifiers of the new parts of speech, one per token, 
+	 * in the part of speech table of the source.
+	 * @throws IllegalArgumentException If there is not one part of speech per 
+	 * token.
+	 */
+	public ColumnarCorpus(ColumnarCorpus source, byte[] tags)
+	{
+		if (tags.length < source.tokens)
+			throw new IllegalArgumentException("Missing parts of speech");
+		this.words = source.words;
+		this.tags = tags;
+		this.offsets = source.offsets;
+		this.wordTable = source.wordTable;
+		this.tagTable = source.tagTable;
+		this.tokens = source.tokens;
+		this.sentences = source.sentences;
+	}
+	
+	/**
+	 * Adds a sentence after the last one. The sentence is not modified.
+	 * @param s The Sentence to be added.
+	 * @throws IllegalStateException If there are too many distinct parts of 
+	 * speech.
+	 */
+	public void add(Sentence s)
+	{
+		this.newSentence();
+		Entry e = s.peek();
+		while (e != null)
+		{
+			this.newToken(this.wordTable.add(e.value()),
+					this.tagId(e.partOfSpeech()));
+			e = (e.hasNext() ? e.next() : null);
+		}
+	}
+	
+	/**
+	 * Adds every sentence of another ColumnarCorpus after the last one, 
+	 * translating the identifiers of its words and parts of speech into those 
+	 * of this one.
+	 * @param other The ColumnarCorpus to be appended.
+	 * @throws IllegalStateException If there are too many distinct parts of 
+	 * speech.
+	 */
+	public void append(ColumnarCorpus other)
+	{
+		int[] wordIds = new int[other.wordTable.size()];
+		for (int i = 0 ; i < wordIds.length ; i++)
+			wordIds[i] = this.wordTable.add(other.wordTable.get(i));
+		byte[] tagIds = new byte[other.tagTable.size()];
+		for (int i = 0 ; i < tagIds.length ; i++)
+			tagIds[i] = this.tagId(other.tagTable.get(i));
+		for (int k = 0 ; k < other.sentences ; k++)
+		{
+			this.newSentence();
+			for (int i = other.start(k) ; i < other.end(k) ; i++)
+				this.newToken(wordIds[other.words[i]], tagIds[other.tag(i)]);
+		}
+	}
+	
+	/**
+	 * Returns the index following the last token of a sentence.
+	 * @param key The key of the sentence.
+	 * @return The index following the last token of the sentence.
+	 * @throws NoSuchElementException If there is no such sentence.
+	 */
+	public int end(int key)
+	{
+		if (key < 0 || key >= this.sentences)
+			throw new NoSuchElementException();
+		return (key + 1 < this.sentences ? this.offsets[key + 1] : this.tokens);
+	}
+	
+	/**
+	 * Builds and returns the Sentence stored with the integer in argument as 
+	 * the key.
+	 * @param key The key of the Sentence we will be fetching.
+	 * @return A new instance of Sentence.
+	 * @throws NoSuchElementException If there is no such Sentence.
+	 */
+	public Sentence get(int key)
+	{
+		Sentence s = new Sentence();
+		for (int i = this.start(key) ; i < this.end(key) ; i++)
+			s.push(this.wordTable.get(this.words[i]),
+					this.tagTable.get(this.tag(i)));
+		return s;
+	}
+	
+	/**
+	 * Starts a new, empty sentence after the last one.
+	 */
+	public void newSentence()
+	{
+		if (this.sentences == this.offsets.length)
+		{
+			int[] offsets = new int[this.offsets.length * 2];
+			System.arraycopy(this.offsets, 0, offsets, 0, this.sentences);
+			this.offsets = offsets;
+		}
+		this.offsets[this.sentences] = this.tokens;
+		this.sentences++;
+	}
+	
+	/**
+	 * Adds a token at the end of the last sentence.
+	 * @param word The identifier of the word in wordTable().
+	 * @param tag The identifier of the part of speech in tagTable().
+	 */
+	public void newToken(int word, byte tag)
+	{
+		if (this.tokens == this.words.length)
+		{
+			int[] words = new int[this.words.length * 2];
+			byte[] tags = new byte[this.tags.length * 2];
+			System.arraycopy(this.words, 0, words, 0, this.tokens);
+			System.arraycopy(this.tags, 0, tags, 0, this.tokens);
+			this.words = words;
+			this.tags = tags;
+		}
+		this.words[this.tokens] = word;
+		this.tags[this.tokens] = tag;
+		this.tokens++;
+	}
+	
+	/**
+	 * Returns the number of sentences, which is also the key the next 
+	 * sentence will be given.
+	 * @return The number of sentences.
+	 */
+	public int size()
+	{
+		return this.sentences;
+	}
+	
+	/**
+	 * Returns the index of the first token of a sentence.
+	 * @param key The key of the sentence.
+	 * @return The index of the first token of the sentence.
+	 * @throws NoSuchElementException If there is no such sentence.
+	 */
+	public int start(int key)
+	{
+		if (key < 0 || key >= this.sentences)
+			throw new NoSuchElementException();
+		return this.offsets[key];
+	}
+	
+	/**
+	 * Returns the identifier of the part of speech of a token.
+	 * @param i The index of the token.
+	 * @return The identifier of its part of speech in tagTable().
+	 */
+	public int tag(int i)
+	{
+		return this.tags[i] & 0xFF;
+	}
+	
+	/**
+	 * Returns the identifier of a part of speech as a byte, giving it a new 
+	 * one if needed.
+	 * @param pos The value of the part of speech.
+	 * @return The identifier of the part of speech.
+	 * @throws IllegalStateException If there are too many distinct parts of 
+	 * speech.
+	 */
+	public byte tagId(String pos)
+	{
+		int id = this.tagTable.add(pos);
+		if (id > ColumnarCorpus.maxTag)
+			throw new IllegalStateException("Too many parts of speech");
+		return (byte) id;
+	}
+	
+	/**
+	 * Returns the table of the parts of speech.
+	 * @return The SymbolTable of the parts of speech.
+	 */
+	public SymbolTable tagTable()
+	{
+		return this.tagTable;
+	}
+	
+	/**
+	 * Returns the identifier of the word of a token.
+	 * @param i The index of the token.
+	 * @return The identifier of its word in wordTable().
+	 */
+	public int word(int i)
+	{
+		return this.words[i];
+	}
+	
+	/**
+	 * Returns the table of the words.
+	 * @return The SymbolTable of the words.
+	 */
+	public SymbolTable wordTable()
+	{
+		return this.wordTable;
+	}
+	
+	/**
+	 * The offset of the first token of each sentence, indexed by key.
+	 */
+	private int[] offsets;
+	
+	/**
+	 * The number of sentences.
+	 */
+	private int sentences;
+	
+	/**
+	 * The identifier of the part of speech of each token.
+	 */
+	private byte[] tags;
+	
+	/**
+	 * The table of the parts of speech.
+	 */
+	private final SymbolTable tagTable;
+	
+	/**
+	 * The number of tokens.
+	 */
+	private int tokens;
+	
+	/**
+	 * The identifier of the word of each token.
+	 */
+	private int[] words;
+	
+	/**
+	 * The table of the words.
+	 */
+	private final SymbolTable wordTable;
+	
+	/**
+	 * The default number of tokens and sentences the columns can hold before 
+	 * growing.
+	 */
+	private static final int defaultSize = 1024;
+	
+	/**
+	 * The greatest identifier of a part of speech that fits in a byte.
+	 */
+	private static final int maxTag = 255;
+}
@@ -0,0 +1,251 @@
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * <p>The implementation of Dictionary which can be filled by several threads 
+ * at once. Words are spread over a fixed number of HashDictionary segments 
+ * according to their hash, and each segment is guarded by its own lock. Two 
+ * threads thus only wait for one another when they add words falling into 
+ * the same segment, which makes throughput grow with the number of threads.
+ * </p>
+ *
+ * <p>As every occurrence of a given word goes through the lock of the same 
+ * segment, the parts of speech of a Word are never modified by two threads 
+ * at once.</p>
+ */
+public class ConcurrentDictionary implements Dictionary
+{
+	/**
+	 * Creates a new empty instance of ConcurrentDictionary, with the default 
+	 * number of segments stated in a static attribute.
+	 * @see ConcurrentDictionary#defaultSegments
+	 */
+	public ConcurrentDictionary()
+	{
+		this(ConcurrentDictionary.defaultSegments);
+	}
+	
+	/**
+	 * Creates a new empty instance of ConcurrentDictionary.
+	 * @param segments The number of segments, which is rounded up to a power 
+	 * of two.
+	 * @throws IllegalArgumentException If segments is not positive.
+	 */
+	public ConcurrentDictionary(int segments)
+	{
+		if (segments <= 0)
+			throw new IllegalArgumentException("There must be one segment at " +
+					"least");
+		int shift = 32;
+		int count = 1;
+		while (count < segments)
+		{
+			count *= 2;
+			shift--;
+		}
+		this.shift = shift;
+		this.segments = new HashDictionary[count];
+		for (int i = 0 ; i < count ; i++)
+			this.segments[i] = new HashDictionary();
+	}
+	
+	/**
+	 * Adds an occurrence of Word-PartOfSpeech couple while avoiding duplicate 
+	 * entries of Word. This method can be called by several threads at once.
+	 * @param word The value of the word encountered in the corpus
+	 * @param pos The value of the part of speech encountered in the corpus
+	 */
+	@Override
+	public void add(String word, String pos)
+	{
+		if (word.isEmpty() || pos.isEmpty())
+			throw new IllegalArgumentException();
+		HashDictionary s = this.segment(word);
+		synchronized (s)
+		{
+			s.add(word, pos);
+		}
+	}
+	
+	/**
+	 * Adds several occurrences of a Word-PartOfSpeech couple at once. It 
+	 * behaves as many calls to add(String, String) would.
+	 * @param word The value of the word
+	 * @param pos The value of the part of speech
+	 * @param occurrences The number of occurrences to be added
+	 */
+	@Override
+	public void add(String word, String pos, int occurrences)
+	{
+		if (word.isEmpty() || pos.isEmpty())
+			throw new IllegalArgumentException();
+		HashDictionary s = this.segment(word);
+		synchronized (s)
+		{
+			s.add(word, pos, occurrences);
+		}
+	}
+	
+	/**
+	 * Finds and returns a word in the dictionary.
+	 * @param target The value of the word that should be returned.
+	 * @return The Word whose value is identical to the target argument.
+	 * @throws NoSuchElementException If there is no such Word.
+	 * @see ConcurrentDictionary#lookup(String)
+	 */
+	@Override
+	public Word find(String target) throws NoSuchElementException
+	{
+		Word result = this.lookup(target);
+		if (result == null)
+			throw new NoSuchElementException();
+		return result;
+	}
+	
+	/**
+	 * Returns an iterator over every Word of the Dictionary, in no particular 
+	 * order. The Dictionary must not be modified during the iteration.
+	 * @return An iterator over every Word of the Dictionary.
+	 */
+	@Override
+	public Iterator<Word> iterator()
+	{
+		return new SegmentIterator(this.segments);
+	}
+	
+	/**
+	 * Finds and returns a word in the dictionary, without considering a 
+	 * missing word as an exceptional case.
+	 * @param target The value of the word that should be returned.
+	 * @return The Word whose value is identical to the target argument, or 
+	 * null if there is no such Word.
+	 */
+	@Override
+	public Word lookup(String target)
+	{
+		HashDictionary s = this.segment(target);
+		synchronized (s)
+		{
+			return s.lookup(target);
+		}
+	}
+	
+	/**
+	 * Returns the segment a word belongs to. The hash of the word is mixed 
+	 * and its high bits are used, as the low ones are those the segment 
+	 * itself relies on to place the word.
+	 * @param target The value of the word.
+	 * @return The segment in which the word is or should be stored.
+	 */
+	private HashDictionary segment(String target)
+	{
+		if (this.shift == 32)
+			return this.segments[0];
+		int h = target.hashCode() * ConcurrentDictionary.mix;
+		return this.segments[h >>> this.shift];
+	}
+	
+	/**
+	 * An iterator browsing every Word of every segment in turn.
+	 */
+	private static class SegmentIterator implements Iterator<Word>
+	{
+		/**
+		 * Creates a new iterator over the given segments.
+		 * @param segments The segments to browse.
+		 */
+		public SegmentIterator(HashDictionary[] segments)
+		{
+			this.segments = segments;
+			this.cursor = 0;
+			this.current = segments[0].iterator();
+			this.skip();
+		}
+		
+		/**
+		 * Checks whether there is a Word left to browse.
+		 * @return True if there is a next Word, false otherwise.
+		 */
+		@Override
+		public boolean hasNext()
+		{
+			return this.current.hasNext();
+		}
+		
+		/**
+		 * Returns the next Word.
+		 * @return The next Word.
+		 * @throws NoSuchElementException If every Word has been browsed.
+		 */
+		@Override
+		public Word next()
+		{
+			Word w = this.current.next();
+			this.skip();
+			return w;
+		}
+		
+		/**
+		 * This operation is not supported.
+		 * @throws UnsupportedOperationException
+		 */
+		@Override
+		public void remove()
+		{
+			throw new UnsupportedOperationException();
+		}
+		
+		/**
+		 * Moves forward to the next segment which still has a Word to 
+		 * browse, or to the last segment.
+		 */
+		private void skip()
+		{
+			while (!this.current.hasNext()
+					&& this.cursor < this.segments.length - 1)
+			{
+				this.cursor++;
+				this.current = this.segments[this.cursor].iterator();
+			}
+		}
+		
+		/**
+		 * The segments being browsed.
+		 */
+		private final HashDictionary[] segments;
+		
+		/**
+		 * The index of the segment being browsed.
+		 */
+		private int cursor;
+		
+		/**
+		 * The iterator over the segment being browsed.
+		 */
+		private Iterator<Word> current;
+	}
+	
+	/**
+	 * The segments in which the words are stored. Its length is always a 
+	 * power of two.
+	 */
+	private final HashDictionary[] segments;
+	
+	/**
+	 * The number of bits a mixed hash must be shifted right by to give the 
+	 * index of a segment.
+	 * @see ConcurrentDictionary#segment(String)
+	 */
+	private final int shift;
+	
+	/**
+	 * The odd constant by which hashes are multiplied so that their high 
+	 * bits depend on every bit of the original hash.
+	 */
+	private static final int mix = 0x9E3779B9;
+	
+	/**
+	 * The default number of segments.
+	 */
+	private static final int defaultSegments = 64;
+}
@@ -39,7 +39,7 @@ public class Corpus
 	 */
 	public Sentence get(int key)
 	{
-		if (key > this.content.length || this.content[key] == null)
+		if (key >= this.content.length || this.content[key] == null)
 			throw new NoSuchElementException();
 		return this.content[key];
 	}
@@ -71,7 +71,8 @@ public class Corpus
 	
 	/**
 	 * Puts and overrides if needed a Sentence with its associated key in the 
-	 * table.
+	 * table. If the key does not fit, the table is at least doubled in size, 
+	 * so that putting consecutive keys takes constant amortized time.
 	 * @param i The key to be inserted in the table.
 	 * @param s The Sentence to be inserted in the table.
 	 */
@@ -81,7 +82,8 @@ public class Corpus
 		{
 			synchronized (this)
 			{
-				Sentence[] replacement = new Sentence[key+1];
+				int size = Math.max(key+1, this.content.length * 2);
+				Sentence[] replacement = new Sentence[size];
 				for (int i = 0 ; i < this.content.length ; i++)
 				replacement[i] = this.content[i];
 				this.content = replacement;
@@ -0,0 +1,480 @@
+import java.util.Arrays;
+
+/**
+ * <p>A minimised acyclic automaton, or Directed Acyclic Word Graph, 
+ * recognising a fixed set of Strings. Strings sharing a prefix share the 
+ * states spelling it, as in a trie, and Strings sharing a suffix share the 
+ * states spelling it as well, as equivalent states are merged while the 
+ * automaton is built. Inflected forms of the same stem thus cost little more 
+ * than the stem itself.</p>
+ *
+ * <p>Every transition also holds the number of Strings recognised from its 
+ * state which come before it in alphabetical order. Following the path of a 
+ * String therefore gives its rank among all the Strings of the automaton, 
+ * which is used as the index of the data attached to it, and a rank can be 
+ * turned back into its String the same way.</p>
+ *
+ * <p>The automaton is built in one pass over sorted Strings, by the 
+ * algorithm of Daciuk et al.: the states of the last String which are not 
+ * shared with the next one are merged with an equivalent state when there is 
+ * one, or registered otherwise. It is stored in a few arrays of primitives, 
+ * and cannot be modified once built.</p>
+ */
+public class DAWG
+{
+	/**
+	 * Builds the automaton recognising a set of Strings.
+	 * @param values The Strings, in ascending alphabetical order and without 
+	 * duplicates.
+	 * @throws IllegalArgumentException If the Strings are not sorted or not 
+	 * distinct.
+	 */
+	public DAWG(String[] values)
+	{
+		Builder b = new Builder();
+		int[] start = new int[DAWG.defaultDepth];
+		boolean[] accepting = new boolean[DAWG.defaultDepth];
+		int depth = 0;
+		String previous = null;
+		for (String value : values)
+		{
+			if (previous != null && previous.compareTo(value) >= 0)
+				throw new IllegalArgumentException("Values must be sorted and " +
+						"distinct");
+			int common = 0;
+			if (previous != null)
+			{
+				int length = Math.min(previous.length(), value.length());
+				while (common < length
+						&& previous.charAt(common) == value.charAt(common))
+					common++;
+			}
+			for ( ; depth > common ; depth--)
+				b.close(start[depth], accepting[depth]);
+			if (value.length() >= start.length)
+			{
+				start = Arrays.copyOf(start, value.length() * 2);
+				accepting = Arrays.copyOf(accepting, value.length() * 2);
+			}
+			for ( ; depth < value.length() ; depth++)
+			{
+				b.push(value.charAt(depth));
+				start[depth + 1] = b.pending;
+				accepting[depth + 1] = false;
+			}
+			accepting[depth] = true;
+			previous = value;
+		}
+		for ( ; depth > 0 ; depth--)
+			b.close(start[depth], accepting[depth]);
+		this.root = b.register(0, b.pending, accepting[0]);
+		this.size = values.length;
+		this.states = Arrays.copyOf(b.states, b.stateCount + 1);
+		this.labels = Arrays.copyOf(b.labels, b.transitionCount);
+		this.targets = Arrays.copyOf(b.targets, b.transitionCount);
+		this.ranks = Arrays.copyOf(b.ranks, b.transitionCount);
+	}
+	
+	/**
+	 * Returns the rank of a String in the automaton.
+	 * @param value The String to be looked up.
+	 * @return The number of Strings of the automaton which come before value 
+	 * in alphabetical order, or -1 if value is not one of them.
+	 */
+	public int rank(String value)
+	{
+		int state = this.root;
+		int rank = 0;
+		for (int i = 0 ; i < value.length() ; i++)
+		{
+			int t = this.transition(state, value.charAt(i));
+			if (t < 0)
+				return -1;
+			rank += this.ranks[t];
+			state = this.targets[t];
+		}
+		return this.isAccepting(state) ? rank : -1;
+	}
+	
+	/**
+	 * Returns the number of Strings recognised by the automaton.
+	 * @return The number of Strings.
+	 */
+	public int size()
+	{
+		return this.size;
+	}
+	
+	/**
+	 * Returns the number of states of the automaton, once minimised.
+	 * @return The number of states.
+	 */
+	public int stateCount()
+	{
+		return this.states.length - 1;
+	}
+	
+	/**
+	 * Returns the number of transitions of the automaton, once minimised.
+	 * @return The number of transitions.
+	 */
+	public int transitionCount()
+	{
+		return this.labels.length;
+	}
+	
+	/**
+	 * Returns the String of a given rank.
+	 * @param rank The rank of the String.
+	 * @return The String which has rank Strings of the automaton before it.
+	 * @throws IndexOutOfBoundsException If there is no such rank.
+	 * @see DAWG#rank(String)
+	 */
+	public String value(int rank)
+	{
+		if (rank < 0 || rank >= this.size)
+			throw new IndexOutOfBoundsException("No such rank: " + rank);
+		StringBuilder result = new StringBuilder();
+		int state = this.root;
+		while (rank > 0 || !this.isAccepting(state))
+		{
+			int t = (this.states[state + 1] >>> 1) - 1;
+			while (this.ranks[t] > rank)
+				t--;
+			rank -= this.ranks[t];
+			result.append(this.labels[t]);
+			state = this.targets[t];
+		}
+		return result.toString();
+	}
+	
+	/**
+	 * Checks whether a state ends a String of the automaton.
+	 * @param state The state.
+	 * @return True if the state is accepting, false otherwise.
+	 */
+	private boolean isAccepting(int state)
+	{
+		return (this.states[state] & 1) != 0;
+	}
+	
+	/**
+	 * Finds the transition leaving a state with a given label, by binary 
+	 * search as the transitions of a state are sorted by label.
+	 * @param state The state.
+	 * @param label The label of the transition.
+	 * @return The index of the transition, or -1 if there is none.
+	 */
+	private int transition(int state, char label)
+	{
+		int low = this.states[state] >>> 1;
+		int high = (this.states[state + 1] >>> 1) - 1;
+		while (low <= high)
+		{
+			int middle = (low + high) >>> 1;
+			char c = this.labels[middle];
+			if (c < label)
+				low = middle + 1;
+			else if (c > label)
+				high = middle - 1;
+			else
+				return middle;
+		}
+		return -1;
+	}
+	
+	/**
+	 * <p>The state of the automaton while it is being built. The transitions 
+	 * of the states on the path of the last String are kept on a stack, the 
+	 * deepest state's on top; the last transition of each of them leads to 
+	 * the next state on the path, which is not registered yet.</p>
+	 *
+	 * <p>Registered states are stored as in the final automaton, and found 
+	 * again through a hashtable of their identifiers.</p>
+	 */
+	private static class Builder
+	{
+		/**
+		 * Creates an empty builder.
+		 */
+		public Builder()
+		{
+			this.states = new int[DAWG.defaultSize];
+			this.counts = new int[DAWG.defaultSize];
+			this.hashes = new int[DAWG.defaultSize];
+			this.labels = new char[DAWG.defaultSize];
+			this.targets = new int[DAWG.defaultSize];
+			this.ranks = new int[DAWG.defaultSize];
+			this.stackLabels = new char[DAWG.defaultDepth];
+			this.stackTargets = new int[DAWG.defaultDepth];
+			this.table = new int[DAWG.defaultSize * 2];
+		}
+		
+		/**
+		 * Registers the deepest state of the path, whose transitions are at 
+		 * the top of the stack, and makes the last transition of its parent 
+		 * lead to it.
+		 * @param from The index in the stack of its first transition.
+		 * @param accepting Whether the state ends a String.
+		 */
+		public void close(int from, boolean accepting)
+		{
+			int state = this.register(from, this.pending, accepting);
+			this.pending = from;
+			this.stackTargets[from - 1] = state;
+		}
+		
+		/**
+		 * Adds a transition to the deepest state of the path, which leads to 
+		 * a new state.
+		 * @param label The label of the transition.
+		 */
+		public void push(char label)
+		{
+			if (this.pending == this.stackLabels.length)
+			{
+				this.stackLabels = Arrays.copyOf(this.stackLabels,
+						this.pending * 2);
+				this.stackTargets = Arrays.copyOf(this.stackTargets,
+						this.pending * 2);
+			}
+			this.stackLabels[this.pending] = label;
+			this.stackTargets[this.pending] = -1;
+			this.pending++;
+		}
+		
+		/**
+		 * Returns the identifier of a state whose transitions are on the 
+		 * stack. An equivalent registered state is returned if there is one, 
+		 * and the state is registered otherwise.
+		 * @param from The index in the stack of its first transition.
+		 * @param to The index following its last transition.
+		 * @param accepting Whether the state ends a String.
+		 * @return The identifier of the registered state.
+		 */
+		public int register(int from, int to, boolean accepting)
+		{
+			int h = (accepting ? 1 : 0);
+			for (int i = from ; i < to ; i++)
+				h = 31 * (31 * h + this.stackLabels[i]) + this.stackTargets[i];
+			h ^= (h >>> 16);
+			int mask = this.table.length - 1;
+			int slot = h & mask;
+			while (this.table[slot] != 0)
+			{
+				int state = this.table[slot] - 1;
+				if (this.hashes[state] == h
+						&& this.matches(state, from, to, accepting))
+					return state;
+				slot = (slot + 1) & mask;
+			}
+			return this.insert(from, to, accepting, h, slot);
+		}
+		
+		/**
+		 * Doubles the number of slots of the hashtable and places every 
+		 * state again.
+		 */
+		private void grow()
+		{
+			this.table = new int[this.table.length * 2];
+			int mask = this.table.length - 1;
+			for (int state = 0 ; state < this.stateCount ; state++)
+			{
+				int slot = this.hashes[state] & mask;
+				while (this.table[slot] != 0)
+					slot = (slot + 1) & mask;
+				this.table[slot] = state + 1;
+			}
+		}
+		
+		/**
+		 * Registers a new state, copying its transitions from the stack.
+		 * @param from The index in the stack of its first transition.
+		 * @param to The index following its last transition.
+		 * @param accepting Whether the state ends a String.
+		 * @param h The hash of the state.
+		 * @param slot The empty slot of the hashtable in which its identifier 
+		 * is put.
+		 * @return The identifier of the new state.
+		 */
+		private int insert(int from, int to, boolean accepting, int h,
+				int slot)
+		{
+			int state = this.stateCount;
+			if (state + 1 == this.states.length)
+			{
+				this.states = Arrays.copyOf(this.states, state * 2);
+				this.counts = Arrays.copyOf(this.counts, state * 2);
+				this.hashes = Arrays.copyOf(this.hashes, state * 2);
+			}
+			int n = this.transitionCount;
+			if (n + to - from > this.labels.length)
+			{
+				int length = Math.max(this.labels.length * 2, n + to - from);
+				this.labels = Arrays.copyOf(this.labels, length);
+				this.targets = Arrays.copyOf(this.targets, length);
+				this.ranks = Arrays.copyOf(this.ranks, length);
+			}
+			this.states[state] = (n << 1) | (accepting ? 1 : 0);
+			int count = (accepting ? 1 : 0);
+			for (int i = from ; i < to ; i++)
+			{
+				this.labels[n] = this.stackLabels[i];
+				this.targets[n] = this.stackTargets[i];
+				this.ranks[n] = count;
+				count += this.counts[this.stackTargets[i]];
+				n++;
+			}
+			this.transitionCount = n;
+			this.states[state + 1] = n << 1;
+			this.counts[state] = count;
+			this.hashes[state] = h;
+			this.table[slot] = state + 1;
+			this.stateCount++;
+			if (this.stateCount * 2 > this.table.length)
+				this.grow();
+			return state;
+		}
+		
+		/**
+		 * Checks whether a registered state is equivalent to a state whose 
+		 * transitions are on the stack.
+		 * @param state The identifier of the registered state.
+		 * @param from The index in the stack of the first transition.
+		 * @param to The index following the last transition.
+		 * @param accepting Whether the state on the stack ends a String.
+		 * @return True if both states are accepting or not and have the same 
+		 * transitions, false otherwise.
+		 */
+		private boolean matches(int state, int from, int to,
+				boolean accepting)
+		{
+			if (((this.states[state] & 1) != 0) != accepting)
+				return false;
+			int first = this.states[state] >>> 1;
+			if ((this.states[state + 1] >>> 1) - first != to - from)
+				return false;
+			for (int i = from ; i < to ; i++)
+			{
+				int t = first + i - from;
+				if (this.labels[t] != this.stackLabels[i]
+						|| this.targets[t] != this.stackTargets[i])
+					return false;
+			}
+			return true;
+		}
+		
+		/**
+		 * The number of Strings recognised from each registered state.
+		 */
+		private int[] counts;
+		
+		/**
+		 * The hashes of the registered states.
+		 */
+		private int[] hashes;
+		
+		/**
+		 * The labels of the transitions of the registered states.
+		 */
+		private char[] labels;
+		
+		/**
+		 * The number of transitions on the stack.
+		 */
+		private int pending;
+		
+		/**
+		 * The ranks of the transitions of the registered states.
+		 * @see DAWG#ranks
+		 */
+		private int[] ranks;
+		
+		/**
+		 * The labels of the transitions on the stack.
+		 */
+		private char[] stackLabels;
+		
+		/**
+		 * The targets of the transitions on the stack, the last transition of 
+		 * each state excepted.
+		 */
+		private int[] stackTargets;
+		
+		/**
+		 * The number of registered states.
+		 */
+		private int stateCount;
+		
+		/**
+		 * The registered states.
+		 * @see DAWG#states
+		 */
+		private int[] states;
+		
+		/**
+		 * The slots of the hashtable of the registered states, each holding 
+		 * an identifier plus one, or 0 if it is empty. Its length is always a 
+		 * power of two.
+		 */
+		private int[] table;
+		
+		/**
+		 * The targets of the transitions of the registered states.
+		 */
+		private int[] targets;
+		
+		/**
+		 * The number of transitions of the registered states.
+		 */
+		private int transitionCount;
+	}
+	
+	/**
+	 * The label of each transition. The transitions of a state are stored 
+	 * together, sorted by label.
+	 */
+	private final char[] labels;
+	
+	/**
+	 * The rank of each transition, i.e. the number of Strings recognised 
+	 * from its state which come before it: one if the state is accepting, 
+	 * plus the Strings recognised through the previous transitions of the 
+	 * state.
+	 */
+	private final int[] ranks;
+	
+	/**
+	 * The identifier of the initial state.
+	 */
+	private final int root;
+	
+	/**
+	 * The number of Strings recognised by the automaton.
+	 */
+	private final int size;
+	
+	/**
+	 * The index of the first transition of each state, shifted left by one 
+	 * bit, the lowest bit being set if the state is accepting. The 
+	 * transitions of a state end where those of the next one begin, which is 
+	 * why one more element closes the array.
+	 */
+	private final int[] states;
+	
+	/**
+	 * The state each transition leads to.
+	 */
+	private final int[] targets;
+	
+	/**
+	 * The initial length of the arrays used while building.
+	 */
+	private static final int defaultSize = 1024;
+	
+	/**
+	 * The initial length of the arrays indexed by depth used while building.
+	 */
+	private static final int defaultDepth = 64;
+}
@@ -0,0 +1,267 @@
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * <p>The implementation of Dictionary as a minimised acyclic automaton, which 
+ * takes far less memory than a tree or a hashtable on a large vocabulary. 
+ * The automaton only stores the words themselves, sharing their common 
+ * prefixes and suffixes; the rank of a word in it is the index of its parts 
+ * of speech, which are packed into a single array of int.</p>
+ *
+ * <p>As the automaton cannot be modified, the words are first added to a 
+ * HashDictionary, which is turned into the automaton when the Dictionary is 
+ * first read. Adding a word afterwards moves every word back into a 
+ * HashDictionary, which is only worth it for a few additions. Once frozen, 
+ * the Dictionary can be read by several threads at once. A Word is only 
+ * built for the words actually looked up.</p>
+ *
+ * @see DAWG
+ */
+public class DAWGDictionary implements Dictionary
+{
+	/**
+	 * Creates a new empty instance of DAWGDictionary.
+	 */
+	public DAWGDictionary()
+	{
+		this.pending = new HashDictionary();
+		this.automaton = new DAWG(new String[0]);
+		this.offsets = new int[1];
+		this.counts = new int[0];
+	}
+	
+	/**
+	 * Adds an occurrence of Word-PartOfSpeech couple while avoiding duplicate 
+	 * entries of Word.
+	 * @param word The value of the word encountered in the corpus
+	 * @param pos The value of the part of speech encountered in the corpus
+	 */
+	@Override
+	public void add(String word, String pos)
+	{
+		this.thaw().add(word, pos);
+	}
+	
+	/**
+	 * Adds several occurrences of a Word-PartOfSpeech couple at once. It 
+	 * behaves as many calls to add(String, String) would.
+	 * @param word The value of the word
+	 * @param pos The value of the part of speech
+	 * @param occurrences The number of occurrences to be added
+	 */
+	@Override
+	public void add(String word, String pos, int occurrences)
+	{
+		this.thaw().add(word, pos, occurrences);
+	}
+	
+	/**
+	 * Finds and returns a word in the dictionary.
+	 * @param target The value of the word that should be returned.
+	 * @return A new Word holding the parts of speech of the target.
+	 * @throws NoSuchElementException If there is no such Word.
+	 * @see DAWGDictionary#lookup(String)
+	 */
+	@Override
+	public Word find(String target) throws NoSuchElementException
+	{
+		Word result = this.lookup(target);
+		if (result == null)
+			throw new NoSuchElementException();
+		return result;
+	}
+	
+	/**
+	 * Returns an iterator over every Word of the Dictionary, in alphabetical 
+	 * order. A new Word is built for each of them. The Dictionary must not be 
+	 * modified during the iteration.
+	 * @return An iterator over every Word of the Dictionary.
+	 */
+	@Override
+	public Iterator<Word> iterator()
+	{
+		this.freeze();
+		return new RankIterator();
+	}
+	
+	/**
+	 * Finds and returns a word in the dictionary, without considering a 
+	 * missing word as an exceptional case.
+	 * @param target The value of the word that should be returned.
+	 * @return A new Word holding the parts of speech of the target, or null 
+	 * if there is no such Word.
+	 */
+	@Override
+	public Word lookup(String target)
+	{
+		if (this.pending != null)
+			this.freeze();
+		int rank = this.automaton.rank(target);
+		if (rank == -1)
+			return null;
+		return this.word(target, rank);
+	}
+	
+	/**
+	 * Turns the words added since the Dictionary was last frozen into the 
+	 * automaton. Their parts of speech are kept in their current order.
+	 */
+	private synchronized void freeze()
+	{
+		HashDictionary words = this.pending;
+		if (words == null)
+			return;
+		int size = 0;
+		for (Word w : words)
+			size++;
+		Word[] sorted = new Word[size];
+		int i = 0;
+		for (Word w : words)
+			sorted[i++] = w;
+		Arrays.sort(sorted);
+		String[] values = new String[size];
+		int[] offsets = new int[size + 1];
+		for (i = 0 ; i < size ; i++)
+		{
+			values[i] = sorted[i].toString();
+			offsets[i + 1] = offsets[i] + 2 * sorted[i].size();
+		}
+		int[] counts = new int[offsets[size]];
+		for (i = 0 ; i < size ; i++)
+		{
+			for (int j = 0 ; j < sorted[i].size() ; j++)
+			{
+				int rank = sorted[i].rankByAppearance(j);
+				counts[offsets[i] + 2 * j] = sorted[i].tag(rank);
+				counts[offsets[i] + 2 * j + 1] = sorted[i].occurrences(rank);
+			}
+		}
+		this.automaton = new DAWG(values);
+		this.offsets = offsets;
+		this.counts = counts;
+		this.pending = null;
+	}
+	
+	/**
+	 * Returns the HashDictionary to which words are added, moving every word 
+	 * of the automaton back into a new one if the Dictionary is frozen.
+	 * @return The HashDictionary holding every word.
+	 */
+	private HashDictionary thaw()
+	{
+		HashDictionary words = this.pending;
+		if (words != null)
+			return words;
+		words = new HashDictionary(this.automaton.size());
+		for (Word w : this)
+		{
+			for (int i = 0 ; i < w.size() ; i++)
+			{
+				int rank = w.rankByAppearance(i);
+				words.add(w.toString(), w.partOfSpeech(rank), 
+						w.occurrences(rank));
+			}
+		}
+		this.pending = words;
+		return words;
+	}
+	
+	/**
+	 * Builds a Word from the parts of speech of a given rank, which are 
+	 * ranked again as they are added in order of first appearance.
+	 * @param value The value of the word.
+	 * @param rank The rank of the word in the automaton.
+	 * @return A new instance of Word.
+	 */
+	private Word word(String value, int rank)
+	{
+		Word w = new Word(value);
+		for (int i = this.offsets[rank] ; i < this.offsets[rank + 1] ; i += 2)
+			w.addPartOfSpeech(this.counts[i], this.counts[i + 1]);
+		return w;
+	}
+	
+	/**
+	 * An iterator building every Word of the automaton by ascending rank.
+	 */
+	private class RankIterator implements Iterator<Word>
+	{
+		/**
+		 * Creates an iterator starting at the first Word.
+		 */
+		public RankIterator()
+		{
+			this.rank = 0;
+		}
+		
+		/**
+		 * Checks whether there is a Word left to browse.
+		 * @return True if there is a next Word, false otherwise.
+		 */
+		@Override
+		public boolean hasNext()
+		{
+			return this.rank < DAWGDictionary.this.automaton.size();
+		}
+		
+		/**
+		 * Builds the next Word.
+		 * @return A new instance of Word.
+		 * @throws NoSuchElementException If every Word has been browsed.
+		 */
+		@Override
+		public Word next()
+		{
+			if (!this.hasNext())
+				throw new NoSuchElementException();
+			DAWGDictionary d = DAWGDictionary.this;
+			Word w = d.word(d.automaton.value(this.rank), this.rank);
+			this.rank++;
+			return w;
+		}
+		
+		/**
+		 * This operation is not supported.
+		 * @throws UnsupportedOperationException
+		 */
+		@Override
+		public void remove()
+		{
+			throw new UnsupportedOperationException();
+		}
+		
+		/**
+		 * The rank of the next Word to be built.
+		 */
+		private int rank;
+	}
+	
+	/**
+	 * The automaton of the words of the Dictionary, as of the last time it 
+	 * was frozen.
+	 */
+	private DAWG automaton;
+	
+	/**
+	 * The parts of speech of every word and their occurrences, in order of 
+	 * first appearance, one word after the other by rank. Each part of 
+	 * speech takes two int: its identifier and its number of occurrences.
+	 * @see DAWGDictionary#offsets
+	 */
+	private int[] counts;
+	
+	/**
+	 * The index in counts of the first part of speech of the word of each 
+	 * rank, followed by the length of counts.
+	 */
+	private int[] offsets;
+	
+	/**
+	 * The words added since the Dictionary was last frozen, along with every 
+	 * word of the automaton; null while the Dictionary is frozen. It is 
+	 * cleared last when freezing, so that a thread reading it as null sees 
+	 * the new automaton.
+	 */
+	private volatile HashDictionary pending;
+}
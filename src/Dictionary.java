@@ -1,94 +1,69 @@
+import java.util.NoSuchElementException;
 
 /**
  * <p>A collection of Word as they have been learnt by the application. Note
- *  that adding an element requires two String arguments as this class handles 
- * duplicate entries on its own and as such, it does not need to create an 
- * instance of Word with a PartOfSpeech attached to it. As the application 
- * has to be one and only one throughout the entire process of the application, 
- * this AVL Tree is also an implementation of Bill Pugh's Singleton pattern.
+ * that adding an element requires two String arguments as every 
+ * implementation handles duplicate entries on its own and as such, it does 
+ * not need to create an instance of Word with a PartOfSpeech attached to it.
  * </p>
- * 
- * <p>As removing an element is not an operation supposed to be needed at any 
- * moment in the application, it has not been implemented at all.</p>
- * 
+ *
+ * <p>Several engines are available, which can be chosen from the program 
+ * arguments: an AVL Tree, which keeps the words in alphabetical order, 
+ * either inserted one at a time or built in bulk, a persistent AVL Tree, 
+ * which can be read without any lock while it is being learnt, a B+ Tree, 
+ * which keeps the words in order with far fewer levels, a hashtable, which 
+ * only allows for point lookups but does them faster, a segmented hashtable, 
+ * which several threads can fill at once, and a minimised automaton, which 
+ * takes the least memory. A saved model can also be mapped as a Dictionary 
+ * to which no word can be added, and any Dictionary can be frozen into 
+ * arrays laid out for faster lookups once it has been learnt.</p>
+ *
  * @author Antoine Lafouasse
  *
+ * @see AVLDictionary
+ * @see BulkAVLDictionary
+ * @see PersistentAVLDictionary
+ * @see BTreeDictionary
+ * @see HashDictionary
+ * @see ConcurrentDictionary
+ * @see DAWGDictionary
+ * @see MappedDictionary
+ * @see FrozenDictionary
  */
-public class Dictionary extends AVLTree<Word>
+public interface Dictionary extends Iterable<Word>
 {
 	/**
-	 * Creates a new instance of Dictionary. No constructor can be called from
-	 * outside of this class.
-	 */
-	private Dictionary()
-	{
-		super();
-	}
-	
-	/**
-	 * In conformity with Bill Pugh's Singleton pattern, this is the instance 
-	 * holder class, which is of course private.
-	 * @author Antoine Lafouasse
+	 * Adds an occurrence of Word-PartOfSpeech couple while avoiding duplicate 
+	 * entries of Word.
+	 * @param word The value of the word encountered in the corpus
+	 * @param pos The value of the part of speech encountered in the corpus
 	 */
-	private static class InstanceHolder
-	{
-		/**
-		 * The one and only instance of Dictionary that will be lazily loaded.
-		 */
-		public final static Dictionary instance = new Dictionary();
-	}
+	public void add(String word, String pos);
 	
 	/**
-	 * The accessor to the instance of Dictionary.
-	 * @return The only instance of Dictionary.
-	 */
-	public static Dictionary getInstance()
-	{
-		return InstanceHolder.instance;
-	}
-
-	/**
-	 * Adds an occurrence of Word-PartOfSpeech couple while keeping the shape 
-	 * of a BST and avoiding duplicate entries of Word.
-	 * @param word The value of the word encountered in the corpus
-	 * @param pos The value of the part of speech encountered in the corpus
+	 * Adds several occurrences of a Word-PartOfSpeech couple at once. It 
+	 * behaves as many calls to add(String, String) would.
+	 * @param word The value of the word
+	 * @param pos The value of the part of speech
+	 * @param occurrences The number of occurrences to be added
+	 * @see Word#addPartOfSpeech(String, int)
 	 */
-	public void add(String word, String pos)
-	{
-		if (word.isEmpty() || pos.isEmpty())
-			throw new IllegalArgumentException();
-		try
-		{
-			Word w = new Word(word);
-			w.addPartOfSpeech(pos);
-			this.push(w);
-		}
-		catch (NodeAlreadyExistsException e)
-		{
-			((Word) e.getNode()).addPartOfSpeech(pos);
-		}
-	}
+	public void add(String word, String pos, int occurrences);
 	
 	/**
-	 * Sorts every PartOfSpeech in each Word of the Dictionary by descending 
-	 * order of occurrences.
+	 * Finds and returns a word in the dictionary.
+	 * @param target The value of the word that should be returned.
+	 * @return The Word whose value is identical to the target argument.
+	 * @throws NoSuchElementException If there is no such Word.
 	 */
-	public void sort()
-	{
-		this.sortRec(this.root);
-	}
+	public Word find(String target) throws NoSuchElementException;
 	
 	/**
-	 * The recursive method used by sort().
-	 * @param root The root of the tree we will be sorting.
-	 * @see Dictionary#sort()
+	 * Finds and returns a word in the dictionary, without considering a 
+	 * missing word as an exceptional case.
+	 * @param target The value of the word that should be returned.
+	 * @return The Word whose value is identical to the target argument, or 
+	 * null if there is no such Word.
 	 */
-	private void sortRec(Word root)
-	{
-		root.sort();
-		if (root.hasLeft())
-			this.sortRec(root.left());
-		if (root.hasRight())
-			this.sortRec(root.right());
-	}
-}
\ No newline at end of file
+	public Word lookup(String target);
+}
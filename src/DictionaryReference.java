@@ -0,0 +1,74 @@
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * <p>A reference to the Dictionary currently used to tag, which can be 
+ * replaced atomically by a newly trained one. A new model can thus be learnt 
+ * or loaded in the background while the current one keeps serving lookups, 
+ * then published at once without pausing any tagging.</p>
+ *
+ * <p>A tagging job is expected to take the current Dictionary once, with 
+ * get(), and to use it until it is done, e.g. by handing it to a Tester: all 
+ * its lookups are then made against the same model, even if a new one is 
+ * published meanwhile. A Dictionary must not be modified any more once it 
+ * has been published, as other threads may be reading it; publishing it 
+ * makes everything added to it beforehand visible to them.</p>
+ */
+public class DictionaryReference
+{
+	/**
+	 * Creates a new reference to a Dictionary.
+	 * @param initial The Dictionary to be used first.
+	 * @throws IllegalArgumentException If initial is null.
+	 */
+	public DictionaryReference(Dictionary initial)
+	{
+		if (initial == null)
+			throw new IllegalArgumentException("Dictionary cannot be null");
+		this.current = new AtomicReference<Dictionary>(initial);
+	}
+	
+	/**
+	 * Returns the Dictionary currently published.
+	 * @return The current Dictionary.
+	 */
+	public Dictionary get()
+	{
+		return this.current.get();
+	}
+	
+	/**
+	 * Publishes a new Dictionary, which is used by every job starting from 
+	 * now on. Jobs already running keep the Dictionary they started with.
+	 * @param d The new Dictionary.
+	 * @return The Dictionary which was published before.
+	 * @throws IllegalArgumentException If d is null.
+	 */
+	public Dictionary publish(Dictionary d)
+	{
+		if (d == null)
+			throw new IllegalArgumentException("Dictionary cannot be null");
+		return this.current.getAndSet(d);
+	}
+	
+	/**
+	 * Publishes a new Dictionary, unless another one has been published since 
+	 * a given one was read. This way, a model trained from an older one never 
+	 * replaces a more recent model trained concurrently.
+	 * @param expected The Dictionary the new one was trained from.
+	 * @param d The new Dictionary.
+	 * @return True if d has been published, false if expected was not the 
+	 * current Dictionary any more.
+	 * @throws IllegalArgumentException If d is null.
+	 */
+	public boolean publish(Dictionary expected, Dictionary d)
+	{
+		if (d == null)
+			throw new IllegalArgumentException("Dictionary cannot be null");
+		return this.current.compareAndSet(expected, d);
+	}
+	
+	/**
+	 * The Dictionary currently published.
+	 */
+	private final AtomicReference<Dictionary> current;
+}
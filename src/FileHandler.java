@@ -1,12 +1,15 @@
 import java.io.BufferedReader;
-import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.FileReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
 /**
  * A class used to handle one file. Its role will be to either fetch or create 
@@ -53,7 +56,44 @@ public class FileHandler
 		return true; 
 	}
 	/**
-	 * Reads the file and tokenises it into a Corpus
+	 * Checks whether the file is a model file rather than a corpus.
+	 * @return true if the file is a model file, false otherwise.
+	 * @throws IOException If the file could not be read.
+	 * @see ModelFile
+	 */
+	public boolean isModel() throws IOException
+	{
+		return ModelFile.isModel(this.target);
+	}
+	
+	/**
+	 * Loads the model file into an empty Dictionary, rather than learning it 
+	 * from a corpus.
+	 * @param d The empty Dictionary to be filled
+	 * @throws IOException If the file could not be read or is not a model 
+	 * file
+	 * @see ModelFile#load(File, Dictionary)
+	 */
+	public void loadModel(Dictionary d) throws IOException
+	{
+		ModelFile.load(this.target, d);
+	}
+	
+	/**
+	 * Maps the model file as a read-only Dictionary, rather than loading it.
+	 * @return An instance of MappedDictionary
+	 * @throws IOException If the file could not be mapped or is not a model 
+	 * file
+	 * @see MappedDictionary
+	 */
+	public MappedDictionary mapModel() throws IOException
+	{
+		return new MappedDictionary(this.target);
+	}
+	
+	/**
+	 * Reads the file and tokenises it into a Corpus. Words are interned while 
+	 * parsing, so that all the occurrences of a word share the same String.
 	 * @return An instance of Corpus
 	 * @throws IOException If this file is either empty or incorrectly 
 	 * formatted
@@ -61,52 +101,244 @@ public class FileHandler
 	public Corpus read() throws IOException
 	{
 		Corpus c = new Corpus();
-		BufferedReader r = new BufferedReader(new InputStreamReader(
-				new FileInputStream(this.target), "utf-8"));
+		SentenceReader r = new SentenceReader(this.target, new SymbolTable());
 		int i = 0;
-		String l = new String();
-		while((l = r.readLine()) != null)
+		try
 		{
-			Sentence result = new Sentence();
-			for (String s : l.split(" "))
+			while (r.hasNext())
 			{
-				String[] w = s.split("__");
-				if (w.length != 2)
-				{
-					System.out.println("Invalid word in corpus");
-					System.exit(-1);
-				}
-				result.push(w[0], w[1]);
+				c.put(i, r.next());
+				i++;
 			}
-			c.put(i, result);
-			i++;
 		}
-		r.close();
+		catch (UncheckedIOException e)
+		{
+			r.close();
+			throw e.getCause();
+		}
 		return c;
 	}
 	
 	/**
-	 * Saves a corpus into the file
+	 * Reads the file with several threads and tokenises it into a 
+	 * ColumnarCorpus. The file is split into ranges of bytes starting at the 
+	 * beginning of a line, which are tokenised at the same time; the ranges 
+	 * are then appended in order, so that each sentence has the same key as 
+	 * read() would have given it, i.e. its line number.
+	 * @param threads The number of threads to be used
+	 * @return An instance of ColumnarCorpus
+	 * @throws IOException If this file is either empty or incorrectly 
+	 * formatted
+	 * @throws IllegalArgumentException If threads is not positive.
+	 * @see FileHandler#read()
+	 */
+	public ColumnarCorpus readColumns(int threads) throws IOException
+	{
+		if (threads <= 0)
+			throw new IllegalArgumentException("There must be one thread at " +
+					"least");
+		long size = this.target.length();
+		int count = (int) Math.min(threads * FileHandler.chunksPerThread, 
+				size / FileHandler.minChunkSize + 1);
+		long[] bounds = this.split(count);
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		List<ParseTask> tasks = new ArrayList<ParseTask>();
+		for (int i = 0 ; i < count ; i++)
+		{
+			ParseTask t = new ParseTask(this.target, bounds[i], bounds[i+1]);
+			tasks.add(t);
+			pool.execute(t);
+		}
+		ColumnarCorpus c = new ColumnarCorpus();
+		try
+		{
+			for (ParseTask t : tasks)
+				c.append(t.join());
+		}
+		catch (UncheckedIOException e)
+		{
+			throw e.getCause();
+		}
+		finally
+		{
+			pool.shutdown();
+		}
+		return c;
+	}
+	
+	/**
+	 * Opens the file so as to read its sentences one at a time, rather than 
+	 * loading all of them into a Corpus. The n-th sentence returned is the 
+	 * one read() would have stored with n as its key.
+	 * @return An iterator over the sentences of the file.
+	 * @throws IOException If the file could not be opened.
+	 * @see FileHandler#read()
+	 */
+	public SentenceReader sentences() throws IOException
+	{
+		return new SentenceReader(this.target);
+	}
+	
+	/**
+	 * Saves a corpus into the file. The Corpus is left untouched.
 	 * @param c A non-empty instance of Corpus
 	 * @throws IOException In case of any writer failure
+	 * @see FileHandler#writer(boolean)
 	 */
 	public void save(Corpus c) throws IOException
 	{
-		StringBuffer s = new StringBuffer();
-		BufferedWriter w = new BufferedWriter(new OutputStreamWriter(
-				new FileOutputStream(this.target), "utf-8"));
-		for (int i : c.keys())
+		SentenceWriter w = this.writer(false);
+		try
+		{
+			for (int i : c.keys())
+				w.write(c.get(i));
+		}
+		finally
+		{
+			w.close();
+		}
+	}
+	
+	/**
+	 * Saves a Dictionary into the file, as a model file. The Dictionary is 
+	 * left untouched.
+	 * @param d The Dictionary to be saved
+	 * @throws IOException In case of any writer failure
+	 * @see ModelFile#save(File, Dictionary)
+	 */
+	public void saveModel(Dictionary d) throws IOException
+	{
+		ModelFile.save(this.target, d);
+	}
+	
+	/**
+	 * Opens the file so as to write sentences into it one at a time, rather 
+	 * than saving a whole Corpus at once. The file is emptied first.
+	 * @param background Whether writing to the disk should be done by a 
+	 * background thread.
+	 * @return A writer into the file, which must be closed once done.
+	 * @throws IOException If the file could not be opened.
+	 * @see FileHandler#save(Corpus)
+	 */
+	public SentenceWriter writer(boolean background) throws IOException
+	{
+		return new SentenceWriter(this.target, background);
+	}
+	
+	/**
+	 * Splits the file into ranges of roughly equal sizes, each of which 
+	 * starts at the beginning of a line.
+	 * @param count The number of ranges.
+	 * @return The count+1 bounds of the ranges, the first one being 0 and the 
+	 * last one the size of the file. Some ranges may be empty.
+	 * @throws IOException If the file could not be read.
+	 */
+	private long[] split(int count) throws IOException
+	{
+		FileChannel ch = new FileInputStream(this.target).getChannel();
+		try
 		{
-			Sentence se = c.get(i);
-			while (!se.isEmpty())
+			long size = ch.size();
+			long[] bounds = new long[count + 1];
+			bounds[count] = size;
+			ByteBuffer b = ByteBuffer.allocate(FileHandler.scanBufferSize);
+			for (int i = 1 ; i < count ; i++)
 			{
-				Entry en = se.pop();
-				s.append(en.value()+"__"+en.partOfSpeech()+" ");
+				long p = Math.max(size / count * i, bounds[i-1]);
+				bounds[i] = size;
+				if (p == 0)
+				{
+					bounds[i] = 0;
+					continue;
+				}
+				long offset = p - 1;
+				boolean found = false;
+				while (!found && offset < size)
+				{
+					b.clear();
+					int n = ch.read(b, offset);
+					if (n <= 0)
+						break;
+					for (int j = 0 ; j < n ; j++)
+					{
+						if (b.get(j) == '\n')
+						{
+							bounds[i] = offset + j + 1;
+							found = true;
+							break;
+						}
+					}
+					offset += n;
+				}
 			}
-			s.append("\n");
+			return bounds;
+		}
+		finally
+		{
+			ch.close();
 		}
-		w.write(s.toString());
-		w.close();
+	}
+	
+	/**
+	 * The task tokenising one range of the file.
+	 */
+	private static class ParseTask extends RecursiveTask<ColumnarCorpus>
+	{
+		/**
+		 * Creates a new task for a range of the file.
+		 * @param target The file to be read.
+		 * @param from The offset of the first byte of the range.
+		 * @param to The offset following the last byte of the range.
+		 */
+		public ParseTask(File target, long from, long to)
+		{
+			this.target = target;
+			this.from = from;
+			this.to = to;
+		}
+		
+		/**
+		 * Tokenises the range.
+		 * @return The sentences of the range, in order.
+		 * @throws UncheckedIOException If the file could not be read.
+		 */
+		@Override
+		protected ColumnarCorpus compute()
+		{
+			ColumnarCorpus result = new ColumnarCorpus();
+			try
+			{
+				SentenceReader r = new SentenceReader(this.target, this.from, 
+						this.to);
+				while (r.hasNext())
+					r.next(result);
+			}
+			catch (IOException e)
+			{
+				throw new UncheckedIOException(e);
+			}
+			return result;
+		}
+		
+		/**
+		 * The file to be read.
+		 */
+		private final File target;
+		
+		/**
+		 * The offset of the first byte of the range.
+		 */
+		private final long from;
+		
+		/**
+		 * The offset following the last byte of the range.
+		 */
+		private final long to;
+		
+		/**
+		 * Default value of a serializable class serial version UID.
+		 */
+		private static final long serialVersionUID = 1L;
 	}
 	
 	/**
@@ -115,4 +347,21 @@ public class FileHandler
 	 * @see FileHandler#FileHandler(String)
 	 */
 	private final File target;
+	
+	/**
+	 * The number of ranges per thread readColumns(int) splits the file into, 
+	 * so that threads finishing early can take over the remaining ones.
+	 */
+	private static final int chunksPerThread = 4;
+	
+	/**
+	 * The minimum size of a range, under which splitting the file any further 
+	 * is not worth it.
+	 */
+	private static final long minChunkSize = 1L << 16;
+	
+	/**
+	 * The size of the buffer used to look for line breaks.
+	 */
+	private static final int scanBufferSize = 4096;
 }
@@ -0,0 +1,500 @@
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * <p>A read-only copy of a Dictionary, laid out in arrays so that looking a 
+ * word up touches as few cache lines as possible. The words are sorted, then 
+ * stored in the breadth-first order of a complete binary search tree (the 
+ * Eytzinger layout): the daughters of slot k are slots 2k and 2k+1, so that 
+ * a search only computes the next index rather than following pointers, and 
+ * the first levels it reads, shared by every search, fit in a few cache 
+ * lines.</p>
+ *
+ * <p>Each slot holds the first four characters of its word packed into a 
+ * long, which settles most comparisons without reading the word itself; the 
+ * characters of the words are only compared when those are equal, and are 
+ * stored in a single array, in the same order. The Word of each slot is a 
+ * copy of the original one, built in the order of the slots, so that the 
+ * words of the first levels are also close to one another on the heap.</p>
+ *
+ * <p>The slots can also be laid out according to the number of occurrences 
+ * of the words, which follows Zipf's law: the root of each subtree is then 
+ * the word splitting the occurrences of the subtree most evenly, rather than 
+ * its number of words. Frequent words thus end up near the root, and the 
+ * average number of comparisons per occurrence drops, at the cost of longer 
+ * searches for rare words. The slots are still numbered in breadth-first 
+ * order, but the daughters of each slot are stored explicitly.</p>
+ *
+ * <p>As the Dictionary is frozen, words cannot be added to it, and it can be 
+ * read by several threads at once.</p>
+ *
+ * @see Tester
+ */
+public class FrozenDictionary implements Dictionary
+{
+	/**
+	 * Builds a frozen copy of a Dictionary, laid out as a complete binary 
+	 * search tree.
+	 * @param source The Dictionary to be copied, which must not be modified 
+	 * meanwhile.
+	 */
+	public FrozenDictionary(Dictionary source)
+	{
+		this(source, false);
+	}
+	
+	/**
+	 * Builds a frozen copy of a Dictionary.
+	 * @param source The Dictionary to be copied, which must not be modified 
+	 * meanwhile.
+	 * @param weighted Whether the tree should be balanced by the number of 
+	 * occurrences of the words rather than by their number.
+	 */
+	public FrozenDictionary(Dictionary source, boolean weighted)
+	{
+		int size = 0;
+		for (Word w : source)
+			size++;
+		Word[] sorted = new Word[size];
+		int i = 0;
+		for (Word w : source)
+			sorted[i++] = w;
+		Arrays.sort(sorted);
+		long[] weights = new long[size + 1];
+		for (i = 0 ; i < size ; i++)
+			weights[i + 1] = weights[i] + FrozenDictionary.weight(sorted[i]);
+		int[] order = new int[size + 1];
+		FrozenDictionary.layout(order, 1, 0);
+		long total = 0;
+		for (int k = 1 ; k <= size ; k++)
+			total += FrozenDictionary.weight(sorted[order[k]]) 
+					* FrozenDictionary.depth(k);
+		this.balancedDepth = (size == 0 ? 0 : (double) total / weights[size]);
+		if (weighted && size > 0)
+		{
+			int[] left = new int[size];
+			int[] right = new int[size];
+			order[1] = FrozenDictionary.build(weights, left, right, 0, size);
+			this.children = new int[2 * (size + 1)];
+			int next = 2;
+			for (int k = 1 ; k <= size ; k++)
+			{
+				if (left[order[k]] != -1)
+				{
+					order[next] = left[order[k]];
+					this.children[2 * k] = next++;
+				}
+				if (right[order[k]] != -1)
+				{
+					order[next] = right[order[k]];
+					this.children[2 * k + 1] = next++;
+				}
+			}
+		}
+		else
+			this.children = null;
+		this.prefixes = new long[size + 1];
+		this.offsets = new int[size + 2];
+		this.words = new Word[size + 1];
+		for (int k = 1 ; k <= size ; k++)
+		{
+			String value = sorted[order[k]].toString();
+			this.prefixes[k] = FrozenDictionary.prefix(value);
+			this.offsets[k + 1] = this.offsets[k] + value.length();
+		}
+		this.chars = new char[this.offsets[size + 1]];
+		for (int k = 1 ; k <= size ; k++)
+		{
+			Word w = sorted[order[k]];
+			w.toString().getChars(0, w.toString().length(), this.chars,
+					this.offsets[k]);
+			this.words[k] = new Word(w);
+		}
+	}
+	
+	/**
+	 * This operation is not supported, as the Dictionary is frozen.
+	 * @param word The value of the word
+	 * @param pos The value of the part of speech
+	 * @throws UnsupportedOperationException
+	 */
+	@Override
+	public void add(String word, String pos)
+	{
+		throw new UnsupportedOperationException("Frozen dictionary");
+	}
+	
+	/**
+	 * This operation is not supported, as the Dictionary is frozen.
+	 * @param word The value of the word
+	 * @param pos The value of the part of speech
+	 * @param occurrences The number of occurrences to be added
+	 * @throws UnsupportedOperationException
+	 */
+	@Override
+	public void add(String word, String pos, int occurrences)
+	{
+		throw new UnsupportedOperationException("Frozen dictionary");
+	}
+	
+	/**
+	 * Returns the average number of comparisons made when looking up the 
+	 * words of the Dictionary, each of them being weighted by its number of 
+	 * occurrences.
+	 * @return The average depth of the words in the tree, the root being at 
+	 * depth 1.
+	 */
+	public double averageDepth()
+	{
+		int size = this.words.length - 1;
+		int[] depths = new int[size + 1];
+		long total = 0;
+		long occurrences = 0;
+		for (int k = 1 ; k <= size ; k++)
+		{
+			if (k == 1)
+				depths[k] = 1;
+			for (int side = 0 ; side < 2 ; side++)
+			{
+				int daughter = this.daughter(k, side);
+				if (daughter != 0)
+					depths[daughter] = depths[k] + 1;
+			}
+			long w = FrozenDictionary.weight(this.words[k]);
+			total += w * depths[k];
+			occurrences += w;
+		}
+		return (occurrences == 0 ? 0 : (double) total / occurrences);
+	}
+	
+	/**
+	 * Returns the average number of comparisons made when looking up the 
+	 * words of the Dictionary if it were laid out as a complete binary search 
+	 * tree, each of them being weighted by its number of occurrences. It is 
+	 * the average depth of the words when the tree is not weighted.
+	 * @return The average depth of the words in a complete tree.
+	 * @see FrozenDictionary#averageDepth()
+	 */
+	public double balancedDepth()
+	{
+		return this.balancedDepth;
+	}
+	
+	/**
+	 * Finds and returns a word in the dictionary.
+	 * @param target The value of the word that should be returned.
+	 * @return The Word whose value is identical to the target argument.
+	 * @throws NoSuchElementException If there is no such Word.
+	 * @see FrozenDictionary#lookup(String)
+	 */
+	@Override
+	public Word find(String target) throws NoSuchElementException
+	{
+		Word result = this.lookup(target);
+		if (result == null)
+			throw new NoSuchElementException();
+		return result;
+	}
+	
+	/**
+	 * Returns an iterator over every Word of the Dictionary, in alphabetical 
+	 * order.
+	 * @return An iterator over the Word of the Dictionary.
+	 */
+	@Override
+	public Iterator<Word> iterator()
+	{
+		return new InOrderIterator();
+	}
+	
+	/**
+	 * Finds and returns a word in the dictionary, without considering a 
+	 * missing word as an exceptional case.
+	 * @param target The value of the word that should be returned.
+	 * @return The Word whose value is identical to the target argument, or 
+	 * null if there is no such Word.
+	 */
+	@Override
+	public Word lookup(String target)
+	{
+		long prefix = FrozenDictionary.prefix(target);
+		long[] keys = this.prefixes;
+		int[] daughters = this.children;
+		int k = (keys.length > 1 ? 1 : 0);
+		while (k != 0)
+		{
+			long p = keys[k];
+			int c;
+			if (p != prefix)
+				c = (p < prefix ? -1 : 1);
+			else
+				c = this.compare(k, target);
+			if (c == 0)
+				return this.words[k];
+			int next = 2 * k + (c < 0 ? 1 : 0);
+			if (daughters != null)
+				k = daughters[next];
+			else
+				k = (next < keys.length ? next : 0);
+		}
+		return null;
+	}
+	
+	/**
+	 * Returns the number of words in the Dictionary.
+	 * @return The number of words.
+	 */
+	public int size()
+	{
+		return this.words.length - 1;
+	}
+	
+	/**
+	 * Finds the root of a subtree of the weighted tree, i.e. the word 
+	 * splitting the occurrences of its range of sorted words most evenly, 
+	 * then the roots of its daughters.
+	 * @param weights The number of occurrences of the sorted words before 
+	 * each index, i.e. the sums of their prefixes.
+	 * @param left The array in which the left daughter of each sorted word 
+	 * is put, or -1 if it has none.
+	 * @param right The array in which the right daughter of each sorted word 
+	 * is put, or -1 if it has none.
+	 * @param from The index of the first sorted word of the range.
+	 * @param to The index following the last sorted word of the range.
+	 * @return The index of the root of the subtree, or -1 if the range is 
+	 * empty.
+	 */
+	private static int build(long[] weights, int[] left, int[] right, 
+			int from, int to)
+	{
+		if (from >= to)
+			return -1;
+		int low = from;
+		int high = to - 1;
+		while (low < high)
+		{
+			int middle = (low + high) >>> 1;
+			if (weights[middle] + weights[middle + 1] 
+					>= weights[from] + weights[to])
+				high = middle;
+			else
+				low = middle + 1;
+		}
+		if (low > from && weights[from] + weights[to] - weights[low - 1] 
+				- weights[low] < weights[low] + weights[low + 1] 
+				- weights[from] - weights[to])
+			low--;
+		left[low] = FrozenDictionary.build(weights, left, right, from, low);
+		right[low] = FrozenDictionary.build(weights, left, right, low + 1, to);
+		return low;
+	}
+	
+	/**
+	 * Compares the word of a slot with a given value, character by character.
+	 * @param slot The slot of the word.
+	 * @param target The value to be compared with.
+	 * @return A negative integer, zero, or a positive integer as the word is 
+	 * lesser than, equal to, or greater than the target, as 
+	 * String.compareTo(String) would.
+	 */
+	private int compare(int slot, String target)
+	{
+		int from = this.offsets[slot];
+		int length = this.offsets[slot + 1] - from;
+		int n = Math.min(length, target.length());
+		for (int i = 0 ; i < n ; i++)
+		{
+			int c = this.chars[from + i] - target.charAt(i);
+			if (c != 0)
+				return c;
+		}
+		return length - target.length();
+	}
+	
+	/**
+	 * Returns a daughter of a slot.
+	 * @param slot The slot whose daughter is returned.
+	 * @param side 0 for the left daughter, 1 for the right one.
+	 * @return The slot of the daughter, or 0 if it has none.
+	 */
+	private int daughter(int slot, int side)
+	{
+		if (this.children != null)
+			return this.children[2 * slot + side];
+		int result = 2 * slot + side;
+		return (result < this.words.length ? result : 0);
+	}
+	
+	/**
+	 * Returns the depth of a slot in a complete tree.
+	 * @param slot The slot.
+	 * @return The depth of the slot, the root being at depth 1.
+	 */
+	private static int depth(int slot)
+	{
+		return Integer.SIZE - Integer.numberOfLeadingZeros(slot);
+	}
+	
+	/**
+	 * Computes the slot of every sorted word, by browsing the slots of the 
+	 * tree in order.
+	 * @param order The array in which the index in the sorted words of the 
+	 * word of each slot is put, slot 0 being unused.
+	 * @param slot The slot whose subtree should be browsed.
+	 * @param next The index of the first sorted word not placed yet.
+	 * @return The index of the first sorted word not placed once the subtree 
+	 * has been browsed.
+	 */
+	private static int layout(int[] order, int slot, int next)
+	{
+		if (slot >= order.length)
+			return next;
+		next = FrozenDictionary.layout(order, 2 * slot, next);
+		order[slot] = next++;
+		return FrozenDictionary.layout(order, 2 * slot + 1, next);
+	}
+	
+	/**
+	 * Packs the first four characters of a value into a long, shorter values 
+	 * being padded with zeros. The sign bit is flipped, so that comparing two 
+	 * packed values compares the characters as String.compareTo(String) 
+	 * would, values with the same four first characters being equal.
+	 * @param value The value to be packed.
+	 * @return The first characters of the value.
+	 */
+	private static long prefix(String value)
+	{
+		long result = 0;
+		int n = Math.min(value.length(), FrozenDictionary.prefixLength);
+		for (int i = 0 ; i < FrozenDictionary.prefixLength ; i++)
+			result = (result << Character.SIZE) | (i < n ? value.charAt(i) : 0);
+		return result ^ Long.MIN_VALUE;
+	}
+	
+	/**
+	 * Returns the number of occurrences of a word.
+	 * @param w The Word.
+	 * @return The number of occurrences of every part of speech of the word.
+	 */
+	private static long weight(Word w)
+	{
+		long result = 0;
+		for (int i = 0 ; i < w.size() ; i++)
+			result += w.occurrences(i);
+		return result;
+	}
+	
+	/**
+	 * An iterator browsing the slots of the tree in order. The path from the 
+	 * root to the next slot is kept in a stack.
+	 */
+	private class InOrderIterator implements Iterator<Word>
+	{
+		/**
+		 * Creates an iterator starting at the first Word.
+		 */
+		public InOrderIterator()
+		{
+			this.path = new ArrayDeque<Integer>();
+			this.pushLeft(FrozenDictionary.this.words.length > 1 ? 1 : 0);
+		}
+		
+		/**
+		 * Checks whether there is a Word left to browse.
+		 * @return True if there is a next Word, false otherwise.
+		 */
+		@Override
+		public boolean hasNext()
+		{
+			return !this.path.isEmpty();
+		}
+		
+		/**
+		 * Returns the next Word in alphabetical order.
+		 * @return The next Word.
+		 * @throws NoSuchElementException If every Word has been browsed.
+		 */
+		@Override
+		public Word next()
+		{
+			if (this.path.isEmpty())
+				throw new NoSuchElementException();
+			int slot = this.path.pop();
+			this.pushLeft(FrozenDictionary.this.daughter(slot, 1));
+			return FrozenDictionary.this.words[slot];
+		}
+		
+		/**
+		 * This operation is not supported.
+		 * @throws UnsupportedOperationException
+		 */
+		@Override
+		public void remove()
+		{
+			throw new UnsupportedOperationException();
+		}
+		
+		/**
+		 * Stacks the given slot and its whole leftmost branch.
+		 * @param slot The slot to start from, or 0.
+		 */
+		private void pushLeft(int slot)
+		{
+			while (slot != 0)
+			{
+				this.path.push(slot);
+				slot = FrozenDictionary.this.daughter(slot, 0);
+			}
+		}
+		
+		/**
+		 * The slots whose left subtree has been browsed but whose Word has not 
+		 * been returned yet. The next slot is at the top.
+		 */
+		private final ArrayDeque<Integer> path;
+	}
+	
+	/**
+	 * The average depth of the words in a complete tree, weighted by their 
+	 * number of occurrences.
+	 * @see FrozenDictionary#balancedDepth()
+	 */
+	private final double balancedDepth;
+	
+	/**
+	 * The characters of the words, one word after the other in the order of 
+	 * their slots.
+	 */
+	private final char[] chars;
+	
+	/**
+	 * The left and right daughters of each slot, at 2k and 2k+1 for slot k, 
+	 * or 0 for a missing daughter, if the tree is weighted. It is null for a 
+	 * complete tree, whose daughters are found by computing their slots.
+	 */
+	private final int[] children;
+	
+	/**
+	 * The offset of the first character of the word of each slot in chars, 
+	 * followed by the total number of characters. Slot 0 is unused.
+	 */
+	private final int[] offsets;
+	
+	/**
+	 * The first characters of the word of each slot, packed by prefix(String). 
+	 * Slot 0 is unused.
+	 */
+	private final long[] prefixes;
+	
+	/**
+	 * The Word of each slot. Slot 0 is unused.
+	 */
+	private final Word[] words;
+	
+	/**
+	 * The number of characters packed into a long by prefix(String).
+	 */
+	private static final int prefixLength = 4;
+}
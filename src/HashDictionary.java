@@ -0,0 +1,277 @@
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * <p>The implementation of Dictionary as a hashtable using open addressing 
+ * and linear probing. Words are stored directly in an array, next to the hash 
+ * of their value, which means a lookup usually costs one hash computation and 
+ * one String comparison. As a consequence, this Dictionary does not keep any 
+ * order between words.</p>
+ *
+ * <p>The table grows by doubling its size as soon as it is half full, so that 
+ * probing sequences remain short.</p>
+ */
+public class HashDictionary implements Dictionary
+{
+	/**
+	 * Creates a new empty instance of HashDictionary, with the default size 
+	 * stated in a static attribute.
+	 * @see HashDictionary#defaultSize
+	 */
+	public HashDictionary()
+	{
+		this(HashDictionary.defaultSize);
+	}
+	
+	/**
+	 * Creates a new empty instance of HashDictionary which can hold at least 
+	 * as many words as stated in argument before growing.
+	 * @param size The expected number of words.
+	 * @throws IllegalArgumentException If size is negative.
+	 */
+	public HashDictionary(int size)
+	{
+		if (size < 0)
+			throw new IllegalArgumentException("Size cannot be negative");
+		int capacity = 2;
+		while (capacity < size * 2)
+			capacity *= 2;
+		this.slots = new Word[capacity];
+		this.hashes = new int[capacity];
+		this.count = 0;
+	}
+	
+	/**
+	 * Adds an occurrence of Word-PartOfSpeech couple while avoiding duplicate 
+	 * entries of Word.
+	 * @param word The value of the word encountered in the corpus
+	 * @param pos The value of the part of speech encountered in the corpus
+	 */
+	@Override
+	public void add(String word, String pos)
+	{
+		if (word.isEmpty() || pos.isEmpty())
+			throw new IllegalArgumentException();
+		this.findOrInsert(word).addPartOfSpeech(pos);
+	}
+	
+	/**
+	 * Adds several occurrences of a Word-PartOfSpeech couple at once. It 
+	 * behaves as many calls to add(String, String) would.
+	 * @param word The value of the word
+	 * @param pos The value of the part of speech
+	 * @param occurrences The number of occurrences to be added
+	 */
+	@Override
+	public void add(String word, String pos, int occurrences)
+	{
+		if (word.isEmpty() || pos.isEmpty())
+			throw new IllegalArgumentException();
+		this.findOrInsert(word).addPartOfSpeech(pos, occurrences);
+	}
+	
+	/**
+	 * Finds and returns a word in the dictionary.
+	 * @param target The value of the word that should be returned.
+	 * @return The Word whose value is identical to the target argument.
+	 * @throws NoSuchElementException If there is no such Word.
+	 * @see HashDictionary#lookup(String)
+	 */
+	@Override
+	public Word find(String target) throws NoSuchElementException
+	{
+		Word result = this.lookup(target);
+		if (result == null)
+			throw new NoSuchElementException();
+		return result;
+	}
+	
+	/**
+	 * Returns an iterator over every Word of the Dictionary, in no particular 
+	 * order. The Dictionary must not be modified during the iteration.
+	 * @return An iterator over every Word of the Dictionary.
+	 */
+	@Override
+	public Iterator<Word> iterator()
+	{
+		return new SlotIterator(this.slots);
+	}
+	
+	/**
+	 * Finds and returns a word in the dictionary, without considering a 
+	 * missing word as an exceptional case.
+	 * @param target The value of the word that should be returned.
+	 * @return The Word whose value is identical to the target argument, or 
+	 * null if there is no such Word.
+	 */
+	@Override
+	public Word lookup(String target)
+	{
+		int h = HashDictionary.hash(target);
+		int mask = this.slots.length - 1;
+		int i = h & mask;
+		while (this.slots[i] != null)
+		{
+			if (this.hashes[i] == h && this.slots[i].toString().equals(target))
+				return this.slots[i];
+			i = (i + 1) & mask;
+		}
+		return null;
+	}
+	
+	/**
+	 * Finds and returns a word in the table, or creates and inserts it if 
+	 * there is none.
+	 * @param target The value of the word that should be returned.
+	 * @return The Word whose value is identical to the target argument.
+	 */
+	private Word findOrInsert(String target)
+	{
+		int h = HashDictionary.hash(target);
+		int mask = this.slots.length - 1;
+		int i = h & mask;
+		while (this.slots[i] != null)
+		{
+			if (this.hashes[i] == h && this.slots[i].toString().equals(target))
+				return this.slots[i];
+			i = (i + 1) & mask;
+		}
+		Word w = new Word(target);
+		this.slots[i] = w;
+		this.hashes[i] = h;
+		this.count++;
+		if (this.count * 2 > this.slots.length)
+			this.grow();
+		return w;
+	}
+	
+	/**
+	 * Doubles the size of the table and inserts every word again in it. The 
+	 * stored hashes are reused so that no String is hashed twice.
+	 */
+	private void grow()
+	{
+		Word[] oldSlots = this.slots;
+		int[] oldHashes = this.hashes;
+		this.slots = new Word[oldSlots.length * 2];
+		this.hashes = new int[oldSlots.length * 2];
+		int mask = this.slots.length - 1;
+		for (int j = 0 ; j < oldSlots.length ; j++)
+		{
+			if (oldSlots[j] == null)
+				continue;
+			int i = oldHashes[j] & mask;
+			while (this.slots[i] != null)
+				i = (i + 1) & mask;
+			this.slots[i] = oldSlots[j];
+			this.hashes[i] = oldHashes[j];
+		}
+	}
+	
+	/**
+	 * Computes the hash of a word. The high bits of the String hash are 
+	 * folded into the low ones, as only the latter are used to pick a slot.
+	 * @param target The value of the word.
+	 * @return The hash of the word.
+	 */
+	private static int hash(String target)
+	{
+		int h = target.hashCode();
+		return h ^ (h >>> 16);
+	}
+	
+	/**
+	 * An iterator browsing every non-empty slot of a table.
+	 */
+	private static class SlotIterator implements Iterator<Word>
+	{
+		/**
+		 * Creates a new iterator over the given table.
+		 * @param slots The table to browse.
+		 */
+		public SlotIterator(Word[] slots)
+		{
+			this.slots = slots;
+			this.cursor = 0;
+			this.skip();
+		}
+		
+		/**
+		 * Checks whether there is a Word left to browse.
+		 * @return True if there is a next Word, false otherwise.
+		 */
+		@Override
+		public boolean hasNext()
+		{
+			return this.cursor < this.slots.length;
+		}
+		
+		/**
+		 * Returns the next Word in the table.
+		 * @return The next Word.
+		 * @throws NoSuchElementException If every Word has been browsed.
+		 */
+		@Override
+		public Word next()
+		{
+			if (!this.hasNext())
+				throw new NoSuchElementException();
+			Word w = this.slots[this.cursor];
+			this.cursor++;
+			this.skip();
+			return w;
+		}
+		
+		/**
+		 * This operation is not supported.
+		 * @throws UnsupportedOperationException
+		 */
+		@Override
+		public void remove()
+		{
+			throw new UnsupportedOperationException();
+		}
+		
+		/**
+		 * Moves the cursor forward to the next non-empty slot, or to the end 
+		 * of the table.
+		 */
+		private void skip()
+		{
+			while (this.cursor < this.slots.length
+					&& this.slots[this.cursor] == null)
+				this.cursor++;
+		}
+		
+		/**
+		 * The table being browsed.
+		 */
+		private final Word[] slots;
+		
+		/**
+		 * The index of the next Word to be returned.
+		 */
+		private int cursor;
+	}
+	
+	/**
+	 * The words stored in the table. Its length is always a power of two.
+	 */
+	private Word[] slots;
+	
+	/**
+	 * The hashes of the words stored in the table, at the same indexes.
+	 * @see HashDictionary#hash(String)
+	 */
+	private int[] hashes;
+	
+	/**
+	 * The number of words stored in the table.
+	 */
+	private int count;
+	
+	/**
+	 * The default number of words the table can hold before growing.
+	 */
+	private static final int defaultSize = 1024;
+}
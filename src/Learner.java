@@ -1,9 +1,14 @@
+import java.util.Iterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
 /**
  * A simple class whose sole task is to read a corpus and fill the dictionary 
- * with its sorted content. This dictionary must be a balanced tree and each
- * Word contained in it must have a list of PartOfSpeech sorted by occurrences
- * in descending order.
+ * with its content. Each Word contained in it keeps its parts of speech 
+ * ranked by occurrences in descending order as they are added, so that the 
+ * dictionary is ready to be tested at any time. The dictionary does not need 
+ * to be empty: occurrences are added to those it already holds, so that a 
+ * loaded model can be extended with new corpora.
  * @author Antoine Lafouasse
  *
  */
@@ -12,18 +17,163 @@ public class Learner
 	/**
 	 * Reads the corpus and fills the dictionary with its content.
 	 * @param c An instance of Corpus
+	 * @param d The Dictionary to be filled
 	 */
-	public static void getDictionary(Corpus c)
+	public static void getDictionary(Corpus c, Dictionary d)
 	{	
 		for (int i : c.keys())
+			Learner.learn(c.get(i), d);
+	}
+	
+	/**
+	 * Reads a stream of sentences and fills the dictionary with its content. 
+	 * Unlike getDictionary(Corpus, Dictionary), the whole corpus never needs 
+	 * to be held in memory.
+	 * @param sentences The sentences of the corpus, in any order.
+	 * @param d The Dictionary to be filled
+	 * @see FileHandler#sentences()
+	 */
+	public static void getDictionary(Iterator<Sentence> sentences, 
+			Dictionary d)
+	{
+		while (sentences.hasNext())
+			Learner.learn(sentences.next(), d);
+	}
+	
+	/**
+	 * Reads the corpus with several threads and fills the dictionary with its 
+	 * content. The sentences are split into ranges of keys, each of which is 
+	 * counted by one task into a dictionary of its own; the partial results 
+	 * are then merged in the order of the keys, so that the content of the 
+	 * dictionary is identical to what getDictionary(Corpus, Dictionary) would 
+	 * have produced. The corpus is not modified.
+	 * @param c An instance of ColumnarCorpus
+	 * @param d The Dictionary to be filled
+	 * @param threads The number of threads to be used
+	 * @throws IllegalArgumentException If threads is not positive.
+	 * @see Learner#getDictionary(Corpus, Dictionary)
+	 */
+	public static void getDictionary(ColumnarCorpus c, Dictionary d, 
+			int threads)
+	{
+		if (threads <= 0)
+			throw new IllegalArgumentException("There must be one thread at " +
+					"least");
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		HashDictionary counts = pool.invoke(new CountTask(c, 0, c.size()));
+		pool.shutdown();
+		Learner.merge(d, counts);
+	}
+	
+	/**
+	 * Adds every entry of a sentence to the dictionary. The sentence is 
+	 * emptied in the process.
+	 * @param s The Sentence to be read.
+	 * @param d The Dictionary to be filled.
+	 */
+	private static void learn(Sentence s, Dictionary d)
+	{
+		while (!s.isEmpty())
+		{
+			Entry e = s.pop();
+			d.add(e.value(), e.partOfSpeech());
+		}
+	}
+	
+	/**
+	 * Adds every occurrence stored in a dictionary to another one. For each 
+	 * Word, the parts of speech are added in the order they first appeared 
+	 * in the source, so that those which do not exist yet in the target 
+	 * appear in it in the same order.
+	 * @param target The Dictionary in which occurrences are added.
+	 * @param source The Dictionary whose occurrences are read.
+	 */
+	private static void merge(Dictionary target, Dictionary source)
+	{
+		for (Word w : source)
+		{
+			for (int i = 0 ; i < w.size() ; i++)
+			{
+				int rank = w.rankByAppearance(i);
+				target.add(w.toString(), w.partOfSpeech(rank), 
+						w.occurrences(rank));
+			}
+		}
+	}
+	
+	/**
+	 * The task counting the occurrences in a range of sentences. Ranges 
+	 * larger than a given threshold are split in two halves which are 
+	 * counted separately, then the second one is merged into the first.
+	 */
+	private static class CountTask extends RecursiveTask<HashDictionary>
+	{
+		/**
+		 * Creates a new task for a range of sentences.
+		 * @param c The ColumnarCorpus containing the sentences.
+		 * @param from The key of the first sentence in the range.
+		 * @param to The key following the last sentence in the range.
+		 */
+		public CountTask(ColumnarCorpus c, int from, int to)
+		{
+			this.corpus = c;
+			this.from = from;
+			this.to = to;
+		}
+		
+		/**
+		 * Counts the occurrences in the range of sentences.
+		 * @return A dictionary containing the occurrences of the range, with 
+		 * its parts of speech in order of first appearance.
+		 */
+		@Override
+		protected HashDictionary compute()
 		{
-			Sentence s = c.get(i);
-			while (!s.isEmpty())
+			if (this.to - this.from <= CountTask.threshold)
 			{
-				Entry e = s.pop();
-				Dictionary.getInstance().add(e.value(), e.partOfSpeech());
+				HashDictionary result = new HashDictionary();
+				if (this.from == this.to)
+					return result;
+				SymbolTable words = this.corpus.wordTable();
+				SymbolTable tags = this.corpus.tagTable();
+				int end = this.corpus.end(this.to - 1);
+				for (int i = this.corpus.start(this.from) ; i < end ; i++)
+					result.add(words.get(this.corpus.word(i)), 
+							tags.get(this.corpus.tag(i)));
+				return result;
 			}
+			int middle = (this.from + this.to) >>> 1;
+			CountTask left = new CountTask(this.corpus, this.from, middle);
+			CountTask right = new CountTask(this.corpus, middle, this.to);
+			right.fork();
+			HashDictionary result = left.compute();
+			Learner.merge(result, right.join());
+			return result;
 		}
-		Dictionary.getInstance().sort();
+		
+		/**
+		 * The ColumnarCorpus containing the sentences.
+		 */
+		private final ColumnarCorpus corpus;
+		
+		/**
+		 * The key of the first sentence in the range.
+		 */
+		private final int from;
+		
+		/**
+		 * The key following the last sentence in the range.
+		 */
+		private final int to;
+		
+		/**
+		 * The number of sentences under which a range is not split anymore.
+		 */
+		private static final int threshold = 256;
+		
+		/**
+		 * Default value of a serializable class serial version UID.
+		 */
+		private static final long serialVersionUID = 1L;
 	}
 }
@@ -1,8 +1,16 @@
+import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * An utility class responsible for loading the three corpora (learning, 
- * testing and the result generated by the application). 
+ * testing and the result generated by the application), and for choosing the 
+ * dictionary engine, the number of threads, the model file to be saved and 
+ * the layout of the frozen dictionary, if any. 
+ * The learning corpus may also be a model file saved by a previous run, and 
+ * several of them may be given, so that new corpora are learnt on top of a 
+ * model. 
  * @author Antoine Lafouasse
  *
  */
@@ -20,24 +28,37 @@ public class Loader
 		if (args.length >= 1)
 		{
 			System.out.println("A path for the learning corpus was provided.");
-			System.out.println("Loading: "+args[0]);
-			this.learn = new FileHandler(args[0]);
-			if (this.learn.isEmpty())
+			List<FileHandler> learn = new ArrayList<FileHandler>();
+			for (String path : args[0].split(File.pathSeparator))
 			{
-				System.out.println("Error : this file is empty.");
+				if (path.isEmpty())
+					continue;
+				System.out.println("Loading: "+path);
+				FileHandler f = new FileHandler(path);
+				if (f.isEmpty())
+					System.out.println("Error : this file is empty, it will " +
+							"not be learnt.");
+				else
+					learn.add(f);
+			}
+			if (learn.isEmpty())
+			{
+				System.out.println("Error : no learning corpus left.");
 				System.out.println("Reverting to default configuration");
-				this.learn = new FileHandler(Loader.defaultLearn);
+				learn.add(new FileHandler(Loader.defaultLearn));
 				System.out.println("Default learning corpus successfully " +
 						"loaded.");
 			}
 			else
 				System.out.println("Learning corpus successfully loaded.");
+			this.learn = learn.toArray(new FileHandler[learn.size()]);
 		}
 		else
 		{
 			System.out.println("No path provided for the learning corpus.");
 			System.out.println("Reverting to default configuration.");
-			this.learn = new FileHandler(Loader.defaultLearn);
+			this.learn = new FileHandler[] {
+					new FileHandler(Loader.defaultLearn) };
 			System.out.println("Default learning corpus successfully " +
 					"loaded.");
 		}
@@ -47,7 +68,7 @@ public class Loader
 			System.out.println("A path for the testing corpus was provided.");
 			System.out.println("Loading: "+args[1]);
 			this.test = new FileHandler(args[1]);
-			if (this.learn.isEmpty())
+			if (this.test.isEmpty())
 			{
 				System.out.println("Error : this file is empty.");
 				System.out.println("Reverting to default configuration.");
@@ -81,17 +102,152 @@ public class Loader
 			System.out.println("Default output corpus successfully " +
 					"loaded.");
 		}
+		System.out.println();
+		if (args.length >= 4)
+		{
+			System.out.println("A dictionary engine was provided.");
+			System.out.println("Using: "+args[3]);
+			this.engine = args[3];
+			if (!this.engine.equals(Loader.avlEngine) 
+					&& !this.engine.equals(Loader.bulkEngine) 
+					&& !this.engine.equals(Loader.btreeEngine) 
+					&& !this.engine.equals(Loader.hashEngine) 
+					&& !this.engine.equals(Loader.concurrentEngine)
+					&& !this.engine.equals(Loader.dawgEngine)
+					&& !this.engine.equals(Loader.persistentEngine)
+					&& !this.engine.equals(Loader.mappedEngine))
+			{
+				System.out.println("Error : unknown engine.");
+				System.out.println("Reverting to default configuration.");
+				this.engine = Loader.defaultEngine;
+			}
+			else if (this.isMapped() 
+					&& (this.learn.length != 1 || !this.learn[0].isModel()))
+			{
+				System.out.println("Error : this engine needs a single model " +
+						"file as the learning corpus.");
+				System.out.println("Reverting to default configuration.");
+				this.engine = Loader.defaultEngine;
+			}
+		}
+		else
+		{
+			System.out.println("No dictionary engine provided.");
+			System.out.println("Reverting to default configuration.");
+			this.engine = Loader.defaultEngine;
+		}
+		System.out.println("Dictionary engine: "+this.engine);
+		System.out.println();
+		this.threads = Loader.defaultThreads;
+		if (args.length >= 5)
+		{
+			System.out.println("A number of threads was provided.");
+			try
+			{
+				this.threads = Integer.parseInt(args[4]);
+			}
+			catch (NumberFormatException e)
+			{
+				this.threads = 0;
+			}
+			if (this.threads <= 0)
+			{
+				System.out.println("Error : this is not a positive number.");
+				System.out.println("Reverting to default configuration.");
+				this.threads = Loader.defaultThreads;
+			}
+		}
+		else
+		{
+			System.out.println("No number of threads provided.");
+			System.out.println("Reverting to default configuration.");
+		}
+		System.out.println("Threads: "+this.threads);
+		System.out.println();
+		if (args.length >= 6 && !args[5].isEmpty())
+		{
+			System.out.println("A path for the model file was provided.");
+			this.model = new FileHandler(args[5]);
+			System.out.println("The dictionary will be saved as a model.");
+		}
+		else
+		{
+			System.out.println("No path provided for the model file.");
+			this.model = null;
+		}
+		System.out.println();
+		if (args.length >= 7)
+		{
+			System.out.println("A dictionary layout was provided.");
+			System.out.println("Using: "+args[6]);
+			this.layout = args[6];
+			if (!this.layout.equals(Loader.balancedLayout) 
+					&& !this.layout.equals(Loader.weightedLayout) 
+					&& !this.layout.equals(Loader.noneLayout))
+			{
+				System.out.println("Error : unknown layout.");
+				System.out.println("Reverting to default configuration.");
+				this.layout = this.defaultLayout();
+			}
+		}
+		else
+		{
+			System.out.println("No dictionary layout provided.");
+			System.out.println("Reverting to default configuration.");
+			this.layout = this.defaultLayout();
+		}
+		System.out.println("Dictionary layout: "+this.layout);
 	}
 	
 	/**
-	 * Returns the learning corpus previously loaded.
-	 * @return An instance of FileHandler.
+	 * Creates a new Dictionary using the engine previously chosen. It is 
+	 * empty, unless the engine maps the model file given as the learning 
+	 * corpus.
+	 * @return An instance of AVLDictionary, BulkAVLDictionary, 
+	 * BTreeDictionary, HashDictionary, ConcurrentDictionary, DAWGDictionary, 
+	 * PersistentAVLDictionary or MappedDictionary.
+	 * @throws IOException If the model file could not be mapped.
+	 * @see Loader#isMapped()
 	 */
-	public FileHandler getLearn()
+	public Dictionary getDictionary() throws IOException
+	{
+		if (this.isMapped())
+			return this.learn[0].mapModel();
+		else if (this.engine.equals(Loader.bulkEngine))
+			return new BulkAVLDictionary();
+		else if (this.engine.equals(Loader.btreeEngine))
+			return new BTreeDictionary();
+		else if (this.engine.equals(Loader.hashEngine))
+			return new HashDictionary();
+		else if (this.engine.equals(Loader.concurrentEngine))
+			return new ConcurrentDictionary();
+		else if (this.engine.equals(Loader.dawgEngine))
+			return new DAWGDictionary();
+		else if (this.engine.equals(Loader.persistentEngine))
+			return new PersistentAVLDictionary();
+		else
+			return new AVLDictionary();
+	}
+	
+	/**
+	 * Returns the learning corpora previously loaded, each of which may be a 
+	 * corpus or a model file.
+	 * @return The instances of FileHandler, in the order they must be learnt.
+	 */
+	public FileHandler[] getLearn()
 	{
 		return this.learn;
 	}
 	
+	/**
+	 * Returns the file the dictionary is to be saved into as a model, if any.
+	 * @return An instance of FileHandler, or null if no model is to be saved.
+	 */
+	public FileHandler getModel()
+	{
+		return this.model;
+	}
+	
 	/**
 	 * Returns the testing corpus previously loaded.
 	 * @return An instance of FileHandler.
@@ -111,9 +267,88 @@ public class Loader
 	}
 	
 	/**
-	 * The FileHandler for the learning corpus, loaded in the constructor.
+	 * Returns the number of threads the application may use.
+	 * @return A positive number of threads.
+	 */
+	public int getThreads()
+	{
+		return this.threads;
+	}
+	
+	/**
+	 * Checks whether the dictionary should be copied into a FrozenDictionary 
+	 * before testing.
+	 * @return True if a layout was chosen for the frozen dictionary, false if 
+	 * the dictionary is to be tested as it is.
+	 * @see FrozenDictionary
+	 */
+	public boolean isFrozen()
+	{
+		return !this.layout.equals(Loader.noneLayout);
+	}
+	
+	/**
+	 * Checks whether the engine chosen maps the model file given as the 
+	 * learning corpus, in which case the Dictionary is ready as soon as it 
+	 * has been created.
+	 * @return True if the Dictionary is mapped from a model file, false 
+	 * otherwise.
+	 */
+	public boolean isMapped()
+	{
+		return this.engine.equals(Loader.mappedEngine);
+	}
+	
+	/**
+	 * Checks whether the frozen dictionary should be balanced by the number 
+	 * of occurrences of the words rather than by their number.
+	 * @return True if the layout is weighted, false otherwise.
+	 * @see FrozenDictionary#FrozenDictionary(Dictionary, boolean)
+	 */
+	public boolean isWeighted()
+	{
+		return this.layout.equals(Loader.weightedLayout);
+	}
+	
+	/**
+	 * Returns the layout used when none is provided, which depends on the 
+	 * engine: the dictionary is frozen unless the engine is already meant to 
+	 * be read as it is, because it takes less memory than a copy would, has 
+	 * a lookup of its own, or maps a model file.
+	 * @return The name of the layout.
+	 */
+	private String defaultLayout()
+	{
+		if (this.engine.equals(Loader.btreeEngine) 
+				|| this.engine.equals(Loader.dawgEngine) 
+				|| this.engine.equals(Loader.mappedEngine))
+			return Loader.noneLayout;
+		return Loader.balancedLayout;
+	}
+	
+	/**
+	 * The name of the dictionary engine, chosen in the constructor.
+	 * @see Loader#getDictionary()
+	 */
+	private String engine;
+	
+	/**
+	 * The name of the layout of the frozen dictionary, chosen in the 
+	 * constructor.
+	 * @see Loader#isWeighted()
+	 */
+	private String layout;
+	
+	/**
+	 * The FileHandler for each learning corpus, loaded in the constructor.
 	 */
-	private FileHandler learn;
+	private FileHandler[] learn;
+	
+	/**
+	 * The FileHandler for the model file the dictionary is saved into, or 
+	 * null if none was provided.
+	 */
+	private FileHandler model;
 	
 	/**
 	 * The FileHandler for the result corpus, loaded in the constructor.
@@ -125,6 +360,88 @@ public class Loader
 	 */
 	private FileHandler test;
 	
+	/**
+	 * The number of threads the application may use, read in the constructor.
+	 */
+	private int threads;
+	
+	/**
+	 * The name of the AVL Tree dictionary engine.
+	 * @see AVLDictionary
+	 */
+	private final static String avlEngine = "avl";
+	
+	/**
+	 * The name of the AVL Tree dictionary engine built in two phases.
+	 * @see BulkAVLDictionary
+	 */
+	private final static String bulkEngine = "bulk";
+	
+	/**
+	 * The name of the B+ Tree dictionary engine.
+	 * @see BTreeDictionary
+	 */
+	private final static String btreeEngine = "btree";
+	
+	/**
+	 * The name of the hashtable dictionary engine.
+	 * @see HashDictionary
+	 */
+	private final static String hashEngine = "hash";
+	
+	/**
+	 * The name of the thread-safe hashtable dictionary engine.
+	 * @see ConcurrentDictionary
+	 */
+	private final static String concurrentEngine = "concurrent";
+	
+	/**
+	 * The name of the minimised automaton dictionary engine.
+	 * @see DAWGDictionary
+	 */
+	private final static String dawgEngine = "dawg";
+	
+	/**
+	 * The name of the persistent AVL Tree dictionary engine.
+	 * @see PersistentAVLDictionary
+	 */
+	private final static String persistentEngine = "persistent";
+	
+	/**
+	 * The name of the memory-mapped, read-only dictionary engine.
+	 * @see MappedDictionary
+	 */
+	private final static String mappedEngine = "mapped";
+	
+	/**
+	 * The default dictionary engine.
+	 */
+	private final static String defaultEngine = Loader.avlEngine;
+	
+	/**
+	 * The name of the layout in which the frozen dictionary is a complete 
+	 * binary search tree.
+	 */
+	private final static String balancedLayout = "balanced";
+	
+	/**
+	 * The name of the layout in which the frozen dictionary is balanced by 
+	 * the number of occurrences of the words.
+	 */
+	private final static String weightedLayout = "weighted";
+	
+	/**
+	 * The name of the layout in which the dictionary is not frozen, but 
+	 * tested as it is.
+	 */
+	private final static String noneLayout = "none";
+	
+	/**
+	 * The default number of threads, which means everything is done 
+	 * sequentially.
+	 */
+	private final static int defaultThreads = 1;
+	
 	/**
 	 * The default path to the learning corpus.
 	 */
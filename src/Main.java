@@ -1,4 +1,5 @@
 import java.io.IOException;
+import java.io.UncheckedIOException;
 
 public class Main
 {
@@ -9,17 +10,72 @@ public class Main
 		{
 			Loader l = new Loader(args);
 			FileHandler result = l.getResult();
-			Corpus learn = l.getLearn().read();
-			Corpus test = l.getTest().read();
-			System.out.println("Corpora loaded in "+timer.lap()+"\n");
+			Dictionary dictionary = l.getDictionary();
+			if (l.isMapped())
+				System.out.println("Model mapped in "+timer.lap()+"\n");
+			else
+			{
+				for (FileHandler f : l.getLearn())
+				{
+					if (f.isModel())
+					{
+						f.loadModel(dictionary);
+						System.out.println("Model loaded in "+timer.lap()+"\n");
+					}
+					else if (l.getThreads() > 1)
+					{
+						ColumnarCorpus learn = f.readColumns(l.getThreads());
+						System.out.println("Learning corpus loaded in "+timer.lap()
+								+"\n");
+						
+						Learner.getDictionary(learn, dictionary, l.getThreads());
+						System.out.println("Learning finished in "+timer.lap()+"\n");
+					}
+					else
+					{
+						Learner.getDictionary(f.sentences(), dictionary);
+						System.out.println("Learning finished in "+timer.lap()+"\n");
+					}
+				}
+			}
+			if (l.getModel() != null)
+			{
+				l.getModel().saveModel(dictionary);
+				System.out.println("Model saved in "+timer.lap()+"\n");
+			}
+			if (l.isFrozen())
+			{
+				FrozenDictionary frozen = new FrozenDictionary(dictionary, 
+						l.isWeighted());
+				dictionary = frozen;
+				System.out.println("Dictionary frozen in "+timer.lap()+"\n");
+				if (l.isWeighted())
+				{
+					System.out.println("Average search depth: "
+							+Math.round(frozen.averageDepth() * 100) / 100.0d
+							+" (balanced: "
+							+Math.round(frozen.balancedDepth() * 100) / 100.0d
+							+")\n");
+				}
+			}
 			
-			Learner.getDictionary(learn);
-			System.out.println("Learning finished in "+timer.lap()+"\n");
-			
-			Tester tester = new Tester(test);
-			System.out.println("Testing finished in "+timer.lap());
-			System.out.println(tester.getAccuracy());
-			result.save(tester.getCorpus());
+			try (SentenceWriter out = result.writer(true))
+			{
+				Tester tester;
+				if (l.getThreads() > 1)
+				{
+					ColumnarCorpus test = l.getTest().readColumns(l.getThreads());
+					System.out.println("Testing corpus loaded in "+timer.lap()
+							+"\n");
+					
+					tester = new Tester(test, dictionary, l.getThreads(), out);
+				}
+				else
+					tester = new Tester(l.getTest().sentences(), dictionary, 
+							out);
+				System.out.println("Testing finished in "+timer.lap());
+				System.out.println(tester.getAccuracy());
+			}
 			System.out.println();
 			
 			System.out.println("Output saved in "+timer.lap()+"\n");
@@ -29,5 +85,10 @@ public class Main
 			System.out.println(e.getMessage());
 			System.exit(-1);
 		}
+		catch (UncheckedIOException e)
+		{
+			System.out.println(e.getCause().getMessage());
+			System.exit(-1);
+		}
 	}
 }
@@ -0,0 +1,336 @@
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * <p>A read-only implementation of Dictionary working directly on a model 
+ * file, which is memory-mapped rather than loaded. Opening it only reads the 
+ * header and the parts of speech: words are found through the minimal 
+ * perfect hash function stored in the file, and their record is confirmed by 
+ * comparing its bytes with those of the word looked up, which are encoded 
+ * into a buffer reused by each thread. A Word is only built for the words 
+ * actually looked up, and is then kept in a small cache indexed by slot, so 
+ * that the frequent words are only built once; the rest of the model is 
+ * never copied onto the heap.</p>
+ *
+ * <p>As the file is mapped, several processes tagging with the same model 
+ * share its pages, and opening even a large model takes no time. Lookups 
+ * only read the mapped file and can be made by several threads at once. As 
+ * it is frozen, words cannot be added to this Dictionary.</p>
+ *
+ * @see ModelFile
+ */
+public class MappedDictionary implements Dictionary
+{
+	/**
+	 * Maps a model file.
+	 * @param target The model file.
+	 * @throws IOException If the file could not be mapped, is not a model 
+	 * file, or was saved with another version of the format.
+	 */
+	public MappedDictionary(File target) throws IOException
+	{
+		FileInputStream in = new FileInputStream(target);
+		try
+		{
+			FileChannel channel = in.getChannel();
+			if (channel.size() > Integer.MAX_VALUE)
+				throw new IOException("Model too large to be mapped: " + target);
+			this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+					channel.size());
+		}
+		finally
+		{
+			in.close();
+		}
+		if (this.buffer.limit() < ModelFile.headerSize)
+			throw new IOException("Truncated model file: " + target);
+		ModelFile.checkHeader(this.buffer.getInt(0), this.buffer.getInt(4),
+				target);
+		this.salt = this.buffer.getInt(8);
+		this.tags = new int[this.buffer.getInt(12)];
+		this.words = this.buffer.getInt(16);
+		this.buckets = this.buffer.getInt(20);
+		this.seeds = this.buffer.getInt(24);
+		this.slots = this.buffer.getInt(28);
+		this.records = this.buffer.getInt(32);
+		if (this.buffer.getInt(36) != this.buffer.limit())
+			throw new IOException("Truncated model file: " + target);
+		this.cache = new AtomicReferenceArray<Word>(Integer.highestOneBit(
+				Math.max(1, Math.min(this.words, MappedDictionary.cacheSize))));
+		this.scratch = new ThreadLocal<byte[]>()
+		{
+			@Override
+			protected byte[] initialValue()
+			{
+				return new byte[64];
+			}
+		};
+		int offset = ModelFile.headerSize;
+		for (int i = 0 ; i < this.tags.length ; i++)
+		{
+			int length = this.buffer.getShort(offset) & 0xFFFF;
+			this.tags[i] = PartOfSpeech.id(this.string(offset + 2, length));
+			offset += 2 + length;
+		}
+	}
+	
+	/**
+	 * This operation is not supported, as the Dictionary is frozen.
+	 * @param word The value of the word
+	 * @param pos The value of the part of speech
+	 * @throws UnsupportedOperationException
+	 */
+	@Override
+	public void add(String word, String pos)
+	{
+		throw new UnsupportedOperationException("Frozen dictionary");
+	}
+	
+	/**
+	 * This operation is not supported, as the Dictionary is frozen.
+	 * @param word The value of the word
+	 * @param pos The value of the part of speech
+	 * @param occurrences The number of occurrences to be added
+	 * @throws UnsupportedOperationException
+	 */
+	@Override
+	public void add(String word, String pos, int occurrences)
+	{
+		throw new UnsupportedOperationException("Frozen dictionary");
+	}
+	
+	/**
+	 * Finds and returns a word in the dictionary.
+	 * @param target The value of the word that should be returned.
+	 * @return A Word holding the parts of speech of the target.
+	 * @throws NoSuchElementException If there is no such Word.
+	 */
+	@Override
+	public Word find(String target) throws NoSuchElementException
+	{
+		Word w = this.lookup(target);
+		if (w == null)
+			throw new NoSuchElementException();
+		return w;
+	}
+	
+	/**
+	 * Returns an iterator over the words of the model, in the order they were 
+	 * saved in. A new Word is built for each of them.
+	 * @return An iterator over the Word of the Dictionary.
+	 */
+	@Override
+	public Iterator<Word> iterator()
+	{
+		return new RecordIterator();
+	}
+	
+	/**
+	 * Finds and returns a word in the dictionary, without considering a 
+	 * missing word as an exceptional case. The word is hashed to find its 
+	 * slot, and the bytes of the record of the slot are compared with its 
+	 * own, as the perfect hash function gives a slot to any String. The Word 
+	 * is taken from the cache if it was built by a recent lookup, and must 
+	 * not be modified.
+	 * @param target The value of the word that should be returned.
+	 * @return A Word holding the parts of speech of the target, or null if 
+	 * there is no such Word.
+	 */
+	@Override
+	public Word lookup(String target)
+	{
+		if (this.words == 0)
+			return null;
+		byte[] bytes = this.scratch.get();
+		if (bytes.length < 3 * target.length())
+		{
+			bytes = new byte[3 * target.length()];
+			this.scratch.set(bytes);
+		}
+		int size = ModelFile.encode(target, bytes);
+		long h = ModelFile.hash(bytes, size, this.salt);
+		int seed = this.buffer.getInt(
+				this.seeds + 4 * ModelFile.bucket(h, this.buckets));
+		int slot = (seed < 0 ? -seed - 1 : ModelFile.slot(h, seed, this.words));
+		int line = slot & (this.cache.length() - 1);
+		Word cached = this.cache.get(line);
+		if (cached != null && cached.toString().equals(target))
+			return cached;
+		int offset = this.buffer.getInt(this.slots + 4 * slot);
+		int length = this.buffer.getShort(offset) & 0xFFFF;
+		if (length != size)
+			return null;
+		for (int i = 0 ; i < length ; i++)
+			if (this.buffer.get(offset + 2 + i) != bytes[i])
+				return null;
+		Word w = this.word(target, offset + 2 + length);
+		this.cache.set(line, w);
+		return w;
+	}
+	
+	/**
+	 * Decodes a String stored in the mapped file.
+	 * @param offset The offset of its first byte.
+	 * @param length The number of its bytes.
+	 * @return The String.
+	 */
+	private String string(int offset, int length)
+	{
+		byte[] bytes = new byte[length];
+		for (int i = 0 ; i < length ; i++)
+			bytes[i] = this.buffer.get(offset + i);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+	
+	/**
+	 * Builds a Word from the parts of speech of its record, which are ranked 
+	 * as they are added in order of first appearance.
+	 * @param value The value of the word.
+	 * @param offset The offset of the number of its parts of speech.
+	 * @return A new instance of Word.
+	 */
+	private Word word(String value, int offset)
+	{
+		Word w = new Word(value);
+		int count = this.buffer.getShort(offset);
+		offset += 2;
+		for (int i = 0 ; i < count ; i++)
+		{
+			w.addPartOfSpeech(this.tags[this.buffer.get(offset) & 0xFF],
+					this.buffer.getInt(offset + 1));
+			offset += 5;
+		}
+		return w;
+	}
+	
+	/**
+	 * An iterator reading the records of the model one after the other.
+	 */
+	private class RecordIterator implements Iterator<Word>
+	{
+		/**
+		 * Creates an iterator starting at the first record.
+		 */
+		public RecordIterator()
+		{
+			this.offset = MappedDictionary.this.records;
+			this.remaining = MappedDictionary.this.words;
+		}
+		
+		/**
+		 * Checks whether there is a record left.
+		 * @return True if there is a next Word, false otherwise.
+		 */
+		@Override
+		public boolean hasNext()
+		{
+			return this.remaining > 0;
+		}
+		
+		/**
+		 * Reads the next record.
+		 * @return A new instance of Word.
+		 * @throws NoSuchElementException If every record has been read.
+		 */
+		@Override
+		public Word next()
+		{
+			if (this.remaining == 0)
+				throw new NoSuchElementException();
+			MappedDictionary d = MappedDictionary.this;
+			int length = d.buffer.getShort(this.offset) & 0xFFFF;
+			String value = d.string(this.offset + 2, length);
+			this.offset += 2 + length;
+			Word w = d.word(value, this.offset);
+			this.offset += 2 + 5 * w.size();
+			this.remaining--;
+			return w;
+		}
+		
+		/**
+		 * This operation is not supported.
+		 * @throws UnsupportedOperationException
+		 */
+		@Override
+		public void remove()
+		{
+			throw new UnsupportedOperationException();
+		}
+		
+		/**
+		 * The offset of the next record.
+		 */
+		private int offset;
+		
+		/**
+		 * The number of records left.
+		 */
+		private int remaining;
+	}
+	
+	/**
+	 * The mapped model file, which is only ever read at absolute offsets so 
+	 * that several threads can share it.
+	 */
+	private final MappedByteBuffer buffer;
+	
+	/**
+	 * The number of buckets of the perfect hash function.
+	 */
+	private final int buckets;
+	
+	/**
+	 * The Words built by the last lookups, by slot modulo the size of the 
+	 * cache, which is a power of two.
+	 * @see MappedDictionary#cacheSize
+	 */
+	private final AtomicReferenceArray<Word> cache;
+	
+	/**
+	 * The offset of the records.
+	 */
+	private final int records;
+	
+	/**
+	 * The salt of the hash function.
+	 */
+	private final int salt;
+	
+	/**
+	 * The buffer of each thread into which the words looked up are encoded.
+	 */
+	private final ThreadLocal<byte[]> scratch;
+	
+	/**
+	 * The offset of the seeds of the buckets.
+	 */
+	private final int seeds;
+	
+	/**
+	 * The offset of the slots.
+	 */
+	private final int slots;
+	
+	/**
+	 * The identifier given by PartOfSpeech to each part of speech of the 
+	 * model, by index in the file.
+	 */
+	private final int[] tags;
+	
+	/**
+	 * The number of words of the model.
+	 */
+	private final int words;
+	
+	/**
+	 * The largest number of Words kept in the cache.
+	 */
+	private static final int cacheSize = 1 << 16;
+}
@@ -0,0 +1,567 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * <p>The binary file format in which a trained Dictionary is saved, so that 
+ * it can be loaded again without reading the learning corpus. All numbers 
+ * are big-endian, and Strings are written as their number of bytes as 
+ * unsigned short followed by their UTF-8 bytes. A model file is made of:</p>
+ * <ul>
+ * <li>a header of ten int: the magic number 0x504F534D ("POSM"), the 
+ * version of the format, the salt of the hash function, the number of parts 
+ * of speech, the number of words, the number of buckets of the perfect hash 
+ * function, the offsets of the seeds, of the slots and of the records from 
+ * the start of the file, and the length of the file;</li>
+ * <li>the values of the parts of speech the words have, sorted;</li>
+ * <li>the seed of each bucket, as int;</li>
+ * <li>the offset of the record of the word of each slot, as int;</li>
+ * <li>the record of each word: its value, the number of its parts of speech 
+ * as short, then for each of them by order of first appearance, its index 
+ * in the list above as byte and its number of occurrences as int.</li>
+ * </ul>
+ *
+ * <p>As the parts of speech of each word are saved in the order they first 
+ * appeared in, loading a model ranks them exactly as in the Dictionary which 
+ * was saved, even those with as many occurrences. A model can then be 
+ * extended with new corpora, and yields the same Dictionary as learning 
+ * every corpus from scratch would have.</p>
+ *
+ * <p>The seeds and the slots make up a minimal perfect hash function of the 
+ * words, built by hashing and displacing: every word is hashed once, the 
+ * hash picks its bucket, and the seed of the bucket picks the slot of the 
+ * word among as many slots as there are words. Seeds are chosen when saving 
+ * so that no two words share a slot, starting with the largest buckets; 
+ * buckets holding a single word are then given a free slot directly, which 
+ * is stored as a negative seed. This lets MappedDictionary find the record of 
+ * a word in the file itself, with one hash and one comparison of bytes.</p>
+ *
+ * @see FileHandler#loadModel(Dictionary)
+ * @see FileHandler#saveModel(Dictionary)
+ * @see MappedDictionary
+ */
+public class ModelFile
+{
+	/**
+	 * Returns the bucket of a word.
+	 * @param hash The hash of the word.
+	 * @param buckets The number of buckets.
+	 * @return The index of the bucket, between 0 and buckets excluded.
+	 * @see ModelFile#hash(byte[], int)
+	 */
+	public static int bucket(long hash, int buckets)
+	{
+		return (int) (((hash >>> 32) * buckets) >>> 32);
+	}
+	
+	/**
+	 * Checks the magic number and the version read at the start of a model 
+	 * file.
+	 * @param magic The first int of the file.
+	 * @param version The second int of the file.
+	 * @param target The model file.
+	 * @throws IOException If the file is not a model file, or was saved with 
+	 * another version of the format.
+	 */
+	public static void checkHeader(int magic, int version, File target)
+			throws IOException
+	{
+		if (magic != ModelFile.magic)
+			throw new IOException("Not a model file: " + target);
+		if (version != ModelFile.version)
+			throw new IOException("Unsupported model version: " + version);
+	}
+	
+	/**
+	 * Encodes a word into UTF-8 bytes, exactly as String.getBytes() would, 
+	 * but into a given array, so that looking a word up allocates nothing.
+	 * @param word The word to be encoded.
+	 * @param into The array the bytes are written into, which must be able to 
+	 * hold three bytes per char of the word.
+	 * @return The number of bytes written.
+	 */
+	public static int encode(String word, byte[] into)
+	{
+		int length = 0;
+		for (int i = 0 ; i < word.length() ; i++)
+		{
+			char c = word.charAt(i);
+			if (c < 0x80)
+				into[length++] = (byte) c;
+			else if (c < 0x800)
+			{
+				into[length++] = (byte) (0xC0 | (c >> 6));
+				into[length++] = (byte) (0x80 | (c & 0x3F));
+			}
+			else if (!Character.isSurrogate(c))
+			{
+				into[length++] = (byte) (0xE0 | (c >> 12));
+				into[length++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+				into[length++] = (byte) (0x80 | (c & 0x3F));
+			}
+			else if (Character.isHighSurrogate(c) && i + 1 < word.length() 
+					&& Character.isLowSurrogate(word.charAt(i + 1)))
+			{
+				int p = Character.toCodePoint(c, word.charAt(++i));
+				into[length++] = (byte) (0xF0 | (p >> 18));
+				into[length++] = (byte) (0x80 | ((p >> 12) & 0x3F));
+				into[length++] = (byte) (0x80 | ((p >> 6) & 0x3F));
+				into[length++] = (byte) (0x80 | (p & 0x3F));
+			}
+			else
+				into[length++] = (byte) '?';
+		}
+		return length;
+	}
+	
+	/**
+	 * Hashes the UTF-8 bytes of a word. Each byte is mixed in with a 
+	 * multiplication, and the result goes through the finaliser of 
+	 * MurmurHash3 so that all its bits depend on every byte.
+	 * @param bytes The UTF-8 bytes of the word.
+	 * @param salt The salt of the model file.
+	 * @return The hash of the word.
+	 */
+	public static long hash(byte[] bytes, int salt)
+	{
+		return ModelFile.hash(bytes, bytes.length, salt);
+	}
+	
+	/**
+	 * Hashes the first UTF-8 bytes of an array, as hash(byte[], int) would 
+	 * hash an array holding only them.
+	 * @param bytes The array holding the UTF-8 bytes of the word.
+	 * @param length The number of bytes of the word.
+	 * @param salt The salt of the model file.
+	 * @return The hash of the word.
+	 * @see ModelFile#hash(byte[], int)
+	 */
+	public static long hash(byte[] bytes, int length, int salt)
+	{
+		long h = salt * 0x9E3779B97F4A7C15L + length;
+		for (int i = 0 ; i < length ; i++)
+			h = (h ^ (bytes[i] & 0xFF)) * 0x100000001B3L;
+		return ModelFile.mix(h);
+	}
+	
+	/**
+	 * Checks whether a file starts with the magic number of a model file.
+	 * @param target The file to be checked.
+	 * @return True if the file is a model file, false otherwise.
+	 * @throws IOException If the file could not be read.
+	 */
+	public static boolean isModel(File target) throws IOException
+	{
+		if (target.length() < 4)
+			return false;
+		DataInputStream in = new DataInputStream(new FileInputStream(target));
+		try
+		{
+			return in.readInt() == ModelFile.magic;
+		}
+		finally
+		{
+			in.close();
+		}
+	}
+	
+	/**
+	 * Loads a model file into a Dictionary, adding its occurrences to those 
+	 * already learnt if there are any. The perfect hash function is skipped, 
+	 * and the records are read in order.
+	 * @param target The model file.
+	 * @param d The Dictionary to be filled.
+	 * @throws IOException If the file could not be read, is not a model 
+	 * file, or was saved with another version of the format.
+	 */
+	public static void load(File target, Dictionary d) throws IOException
+	{
+		DataInputStream in = new DataInputStream(new BufferedInputStream(
+				new FileInputStream(target), ModelFile.bufferSize));
+		try
+		{
+			ModelFile.checkHeader(in.readInt(), in.readInt(), target);
+			in.readInt();
+			String[] tags = new String[in.readInt()];
+			int words = in.readInt();
+			int skipped = 4 * (in.readInt() + words);
+			in.readInt();
+			in.readInt();
+			in.readInt();
+			if (in.readInt() != target.length())
+				throw new IOException("Truncated model file: " + target);
+			for (int i = 0 ; i < tags.length ; i++)
+				tags[i] = ModelFile.readString(in);
+			while (skipped > 0)
+			{
+				int n = in.skipBytes(skipped);
+				if (n <= 0)
+					throw new EOFException();
+				skipped -= n;
+			}
+			for (int i = 0 ; i < words ; i++)
+			{
+				String word = ModelFile.readString(in);
+				int count = in.readShort();
+				for (int j = 0 ; j < count ; j++)
+				{
+					int tag = in.readUnsignedByte();
+					int occurrences = in.readInt();
+					if (tag >= tags.length || occurrences <= 0)
+						throw new IOException("Corrupted model file: " + target);
+					d.add(word, tags[tag], occurrences);
+				}
+			}
+		}
+		catch (EOFException e)
+		{
+			throw new IOException("Truncated model file: " + target);
+		}
+		finally
+		{
+			in.close();
+		}
+	}
+	
+	/**
+	 * Saves a Dictionary into a model file, which is emptied first. The 
+	 * Dictionary is left untouched. Only the parts of speech of its words are 
+	 * saved, sorted by value, so that the file only depends on the content of 
+	 * the Dictionary and not on the order the program happened to meet parts 
+	 * of speech in.
+	 * @param target The model file.
+	 * @param d The Dictionary to be saved.
+	 * @throws IOException If the file could not be written, or if the model 
+	 * is too large for the format.
+	 */
+	public static void save(File target, Dictionary d) throws IOException
+	{
+		int words = 0;
+		for (Word w : d)
+			words++;
+		byte[][] keys = new byte[words][];
+		Word[] values = new Word[words];
+		int i = 0;
+		for (Word w : d)
+		{
+			keys[i] = w.toString().getBytes(StandardCharsets.UTF_8);
+			if (keys[i].length > ModelFile.maxLength)
+				throw new IOException("Word too long for a model file");
+			values[i] = w;
+			i++;
+		}
+		String[] tags = ModelFile.tags(values);
+		int[] indexes = new int[PartOfSpeech.count()];
+		long offset = ModelFile.headerSize;
+		for (i = 0 ; i < tags.length ; i++)
+		{
+			indexes[PartOfSpeech.lookup(tags[i])] = i;
+			offset += 2 + tags[i].getBytes(StandardCharsets.UTF_8).length;
+		}
+		int buckets = words / ModelFile.bucketSize + 1;
+		long seedsOffset = offset;
+		long slotsOffset = seedsOffset + 4L * buckets;
+		long recordsOffset = slotsOffset + 4L * words;
+		long[] records = new long[words];
+		offset = recordsOffset;
+		for (i = 0 ; i < words ; i++)
+		{
+			records[i] = offset;
+			offset += 4 + keys[i].length + 5 * values[i].size();
+		}
+		if (offset > Integer.MAX_VALUE)
+			throw new IOException("Model too large for a model file");
+		int[] seeds = new int[buckets];
+		int[] slots = new int[words];
+		int salt = 0;
+		while (!ModelFile.build(keys, salt, seeds, slots))
+		{
+			salt++;
+			if (salt == ModelFile.maxSalts)
+				throw new IOException("No perfect hash function found");
+		}
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+				new FileOutputStream(target), ModelFile.bufferSize));
+		try
+		{
+			out.writeInt(ModelFile.magic);
+			out.writeInt(ModelFile.version);
+			out.writeInt(salt);
+			out.writeInt(tags.length);
+			out.writeInt(words);
+			out.writeInt(buckets);
+			out.writeInt((int) seedsOffset);
+			out.writeInt((int) slotsOffset);
+			out.writeInt((int) recordsOffset);
+			out.writeInt((int) offset);
+			for (i = 0 ; i < tags.length ; i++)
+				ModelFile.writeString(out,
+						tags[i].getBytes(StandardCharsets.UTF_8));
+			for (i = 0 ; i < buckets ; i++)
+				out.writeInt(seeds[i]);
+			for (i = 0 ; i < words ; i++)
+				out.writeInt((int) records[slots[i]]);
+			for (i = 0 ; i < words ; i++)
+			{
+				Word w = values[i];
+				ModelFile.writeString(out, keys[i]);
+				out.writeShort(w.size());
+				for (int j = 0 ; j < w.size() ; j++)
+				{
+					int rank = w.rankByAppearance(j);
+					out.writeByte(indexes[w.tag(rank)]);
+					out.writeInt(w.occurrences(rank));
+				}
+			}
+		}
+		finally
+		{
+			out.close();
+		}
+	}
+	
+	/**
+	 * Returns the slot of a word.
+	 * @param hash The hash of the word.
+	 * @param seed The seed of its bucket, which must not be negative.
+	 * @param words The number of words, i.e. of slots.
+	 * @return The index of the slot, between 0 and words excluded.
+	 * @see ModelFile#hash(byte[], int)
+	 */
+	public static int slot(long hash, int seed, int words)
+	{
+		long h = ModelFile.mix(hash + (seed + 1) * 0x9E3779B97F4A7C15L);
+		return (int) (((h >>> 32) * words) >>> 32);
+	}
+	
+	/**
+	 * Tries to build a minimal perfect hash function of the words with a 
+	 * given salt.
+	 * @param keys The UTF-8 bytes of every word.
+	 * @param salt The salt of the hash function.
+	 * @param seeds The array in which the seed of each bucket is put.
+	 * @param slots The array in which the index of the word of each slot is 
+	 * put.
+	 * @return True if a seed was found for every bucket, false if another salt 
+	 * must be tried.
+	 */
+	private static boolean build(byte[][] keys, int salt, int[] seeds,
+			int[] slots)
+	{
+		int words = keys.length;
+		int buckets = seeds.length;
+		long[] hashes = new long[words];
+		int[] start = new int[buckets + 1];
+		for (int i = 0 ; i < words ; i++)
+		{
+			hashes[i] = ModelFile.hash(keys[i], salt);
+			start[ModelFile.bucket(hashes[i], buckets) + 1]++;
+		}
+		int largest = 0;
+		for (int b = 0 ; b < buckets ; b++)
+		{
+			largest = Math.max(largest, start[b + 1]);
+			start[b + 1] += start[b];
+		}
+		int[] members = new int[words];
+		int[] filled = new int[buckets];
+		for (int i = 0 ; i < words ; i++)
+		{
+			int b = ModelFile.bucket(hashes[i], buckets);
+			members[start[b] + filled[b]] = i;
+			filled[b]++;
+		}
+		boolean[] taken = new boolean[words];
+		int[] candidates = new int[largest];
+		for (int size = largest ; size >= 2 ; size--)
+		{
+			for (int b = 0 ; b < buckets ; b++)
+			{
+				if (start[b + 1] - start[b] != size)
+					continue;
+				int seed = 0;
+				while (!ModelFile.place(hashes, members, start[b], size, seed,
+						taken, candidates))
+				{
+					seed++;
+					if (seed == ModelFile.maxSeed)
+						return false;
+				}
+				seeds[b] = seed;
+				for (int j = 0 ; j < size ; j++)
+				{
+					taken[candidates[j]] = true;
+					slots[candidates[j]] = members[start[b] + j];
+				}
+			}
+		}
+		int free = 0;
+		for (int b = 0 ; b < buckets ; b++)
+		{
+			if (start[b + 1] - start[b] != 1)
+				continue;
+			while (taken[free])
+				free++;
+			taken[free] = true;
+			slots[free] = members[start[b]];
+			seeds[b] = -free - 1;
+		}
+		return true;
+	}
+	
+	/**
+	 * Applies the finaliser of MurmurHash3 to a hash.
+	 * @param h The hash.
+	 * @return The mixed hash.
+	 */
+	private static long mix(long h)
+	{
+		h ^= h >>> 33;
+		h *= 0xFF51AFD7ED558CCDL;
+		h ^= h >>> 33;
+		h *= 0xC4CEB9FE1A85EC53L;
+		h ^= h >>> 33;
+		return h;
+	}
+	
+	/**
+	 * Computes the slots of the words of a bucket with a given seed, and 
+	 * checks that they are all free and distinct.
+	 * @param hashes The hash of every word.
+	 * @param members The words sorted by bucket.
+	 * @param from The index in members of the first word of the bucket.
+	 * @param size The number of words in the bucket.
+	 * @param seed The seed to be tried.
+	 * @param taken Whether each slot is already taken.
+	 * @param candidates The array in which the slots are put.
+	 * @return True if the seed can be used, false otherwise.
+	 */
+	private static boolean place(long[] hashes, int[] members, int from,
+			int size, int seed, boolean[] taken, int[] candidates)
+	{
+		for (int j = 0 ; j < size ; j++)
+		{
+			int s = ModelFile.slot(hashes[members[from + j]], seed,
+					taken.length);
+			if (taken[s])
+				return false;
+			for (int k = 0 ; k < j ; k++)
+				if (candidates[k] == s)
+					return false;
+			candidates[j] = s;
+		}
+		return true;
+	}
+	
+	/**
+	 * Reads a String written by writeString().
+	 * @param in The stream to be read.
+	 * @return The String.
+	 * @throws IOException If the stream could not be read.
+	 */
+	private static String readString(DataInputStream in) throws IOException
+	{
+		byte[] bytes = new byte[in.readUnsignedShort()];
+		in.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+	
+	/**
+	 * Lists the parts of speech the given words have, sorted by value.
+	 * @param words The words to be saved.
+	 * @return The values of the parts of speech, without duplicates.
+	 * @throws IOException If there are too many of them for a model file.
+	 */
+	private static String[] tags(Word[] words) throws IOException
+	{
+		boolean[] used = new boolean[PartOfSpeech.count()];
+		int count = 0;
+		for (Word w : words)
+			for (int i = 0 ; i < w.size() ; i++)
+				if (!used[w.tag(i)])
+				{
+					used[w.tag(i)] = true;
+					count++;
+				}
+		if (count > ModelFile.maxTags)
+			throw new IOException("Too many parts of speech for a model file");
+		String[] tags = new String[count];
+		count = 0;
+		for (int i = 0 ; i < used.length ; i++)
+			if (used[i])
+				tags[count++] = PartOfSpeech.name(i);
+		Arrays.sort(tags);
+		return tags;
+	}
+	
+	/**
+	 * Writes the UTF-8 bytes of a String, preceded by their number.
+	 * @param out The stream to be written.
+	 * @param bytes The UTF-8 bytes of the String.
+	 * @throws IOException If the stream could not be written.
+	 */
+	private static void writeString(DataOutputStream out, byte[] bytes)
+			throws IOException
+	{
+		out.writeShort(bytes.length);
+		out.write(bytes);
+	}
+	
+	/**
+	 * The average number of words per bucket of the perfect hash function.
+	 */
+	private static final int bucketSize = 4;
+	
+	/**
+	 * The size of the buffers used to read and write model files.
+	 */
+	private static final int bufferSize = 1 << 16;
+	
+	/**
+	 * The size of the header of a model file, in bytes.
+	 */
+	public static final int headerSize = 40;
+	
+	/**
+	 * The magic number every model file starts with, i.e. "POSM" in ASCII.
+	 */
+	private static final int magic = 0x504F534D;
+	
+	/**
+	 * The greatest number of UTF-8 bytes of a word.
+	 */
+	private static final int maxLength = 0xFFFF;
+	
+	/**
+	 * The number of salts tried before giving up on building the perfect 
+	 * hash function.
+	 */
+	private static final int maxSalts = 16;
+	
+	/**
+	 * The number of seeds tried for a bucket before trying another salt.
+	 */
+	private static final int maxSeed = 1 << 20;
+	
+	/**
+	 * The greatest number of parts of speech in a model file, so that the 
+	 * index of each of them fits in a byte.
+	 */
+	private static final int maxTags = 256;
+	
+	/**
+	 * The version of the format written by save(), which is the only one 
+	 * load() accepts. Version 2 had the same layout, but listed the parts of 
+	 * speech of each record by rank rather than by order of first appearance, 
+	 * which cannot be recovered from it.
+	 */
+	private static final int version = 3;
+}
@@ -1,113 +1,111 @@
 /**
- * <p>A simple object storing the name of a Part of Speech and the number of
- * times it has appeared in the learning corpus. As such, instances of this 
- * class have no meaning if they do not belong to a Word instance since their 
- * sole purpose is to act as a node of the list contained in Word - hence their 
- * extending ListNode.</p>
- * 
- * <p>For the sake of simplifying code in Word class, nodes are directly 
- * comparable with one another, which makes for a shorter and simpler 
- * alternative to calling accessors for the occurrences count.</p>
- * 
+ * <p>The set of every part of speech known to the program. As the tagset is 
+ * tiny, each part of speech is interned once into a small integer identifier, 
+ * starting at 0 and in order of first appearance, so that a Word only stores 
+ * and compares identifiers rather than Strings. The identifiers are shared 
+ * by every Dictionary and never change.</p>
+ *
+ * <p>As the order of first appearance depends on the order the threads of 
+ * the program happen to run in, the identifiers are only meaningful within 
+ * a run, and never leave it: a model file lists the parts of speech of its 
+ * own words, sorted by value, and refers to them by their index in that 
+ * list, and a corpus or a result file only holds the values of its parts of 
+ * speech. The table is therefore not tied to any model: Dictionaries learnt 
+ * or loaded with different tagsets can be used in the same run, and each of 
+ * them is saved the same whatever else the run has seen.</p>
+ *
+ * <p>The identifiers are held in a SymbolTable which is never modified once 
+ * published: a new part of speech is added to a copy of it, which then 
+ * replaces the current one. As a consequence, looking up a part of speech 
+ * that is already known takes no lock, and several threads can do so while 
+ * learning. As identifiers must fit in the lowest 16 bits of the counts of a 
+ * Word, there cannot be more than 65536 distinct parts of speech in a run, 
+ * however many tagsets it mixes.</p>
+ *
  * @author Antoine Lafouasse
- * 
+ *
  */
-public class PartOfSpeech extends ListNode<PartOfSpeech>
-	implements Comparable<PartOfSpeech>
+public final class PartOfSpeech
 {
 	/**
-	 * Creates a new instance of PartOfSpeech. Note that all new elements
-	 * need to be integrated into the list (i.e. linked to other nodes) right 
-	 * away, as this constructor was not designed to achieve this task. The 
-	 * number of occurrences is by default set to 1, as stated in a static 
-	 * attribute.
-	 * 
-	 * @param name The name of the part of speech found in the corpus.
-	 * @throws IllegalArgumentException If name is empty.
-	 * 
-	 * @see PartOfSpeech#defaultOccurrencesCount
-	 * @see PartOfSpeech#setPrevious(PartOfSpeech)
-	 * @see PartOfSpeech#setNext(PartOfSpeech)
+	 * This class only has static methods and cannot be instantiated.
 	 */
-	public PartOfSpeech(String name)
+	private PartOfSpeech()
 	{
-		super();
-		if (name == "")
-			throw new IllegalArgumentException("POS name cannot be empty");
-		this.name = name;
-		this.occurrences = PartOfSpeech.defaultOccurrencesCount;
 	}
 	
-	/** 
-	 * Increments the number of times the part of speech has appeared by one.
+	/**
+	 * Returns the number of parts of speech known, which is also the 
+	 * identifier the next new part of speech will be given.
+	 * @return The number of parts of speech known.
 	 */
-	public void addOccurrence()
+	public static int count()
 	{
-		this.occurrences++;
+		return PartOfSpeech.table.size();
 	}
 	
 	/**
-	 * Compares the current PartOfSpeech to the target using their number of
-	 * occurrences.
-	 * @param target the PartOfSpeech used for comparison
-	 * @return 1 if the current PartOfSpeech has more occurrences than target, 
-	 * 0 if the number of occurrences is equal to that of target's, -1 
-	 * otherwise
+	 * Returns the identifier of a part of speech, giving it a new one if it 
+	 * is not known yet. This method is thread-safe.
+	 * @param name The value of the part of speech.
+	 * @return The identifier of the part of speech.
+	 * @throws IllegalArgumentException If name is empty.
+	 * @throws IllegalStateException If there are too many distinct parts of 
+	 * speech.
 	 */
-	@Override
-	public int compareTo(PartOfSpeech target)
+	public static int id(String name)
 	{
-		if (target == null)
-			throw new NullPointerException();
-		else if (this.occurrences() == target.occurrences())
-			return 0;
-		else if (this.occurrences() > target.occurrences())
-			return 1;
-		else
-			return -1;
+		int id = PartOfSpeech.table.lookup(name);
+		if (id != -1)
+			return id;
+		if (name.isEmpty())
+			throw new IllegalArgumentException("POS name cannot be empty");
+		synchronized (PartOfSpeech.class)
+		{
+			SymbolTable current = PartOfSpeech.table;
+			id = current.lookup(name);
+			if (id != -1)
+				return id;
+			if (current.size() > PartOfSpeech.maxId)
+				throw new IllegalStateException("Too many parts of speech");
+			SymbolTable replacement = new SymbolTable(current);
+			id = replacement.add(name);
+			PartOfSpeech.table = replacement;
+			return id;
+		}
 	}
 	
 	/**
-	 * Returns the number of occurrences
-	 * @return the number of times the part of speech has appeared in the 
-	 * corpus.
+	 * Returns the identifier of a part of speech without interning it.
+	 * @param name The value of the part of speech.
+	 * @return The identifier of the part of speech, or -1 if it is not known.
 	 */
-	public int occurrences()
+	public static int lookup(String name)
 	{
-		return this.occurrences;
+		return PartOfSpeech.table.lookup(name);
 	}
 	
 	/**
-	 * Returns the value of the PartOfSpeech
-	 * @return the value of the PartOfSpeech
+	 * Returns the value of a part of speech.
+	 * @param id The identifier of the part of speech.
+	 * @return The value of the part of speech.
+	 * @throws IndexOutOfBoundsException If there is no such identifier.
 	 */
-	public String toString()
+	public static String name(int id)
 	{
-		return this.name;
+		return PartOfSpeech.table.get(id);
 	}
 	
 	/**
-	 * The value of the PartOfSpeech. It cannot be modified after the 
-	 * constructor has been called. It can be accessed through the toString() 
-	 * method.
-	 * @see PartOfSpeech#toString()
-	 */
-	private final String name;
-
-	/**
-	 * The number of times the part of speech has appeared in the corpus, 
-	 * associated with a particular word. It can be accessed through the 
-	 * occurrences() method and incremented with addOccurrence()
-	 * @see PartOfSpeech#addOccurrence()
-	 * @see PartOfSpeech#occurrences()
+	 * The table of the parts of speech known. It is replaced rather than 
+	 * modified, so that it can be read without any lock.
 	 */
-	private int occurrences;
+	private static volatile SymbolTable table = new SymbolTable();
 	
 	/**
-	 * The default initialisation value for occurrences. It cannot be 
-	 * overridden.
-	 * @see PartOfSpeech#occurrences
-	 * @see PartOfSpeech#PartOfSpeech(String)
+	 * The greatest identifier of a part of speech, so that it fits in the 
+	 * counts of a Word.
+	 * @see Word#tagBits
 	 */
-	private final static int defaultOccurrencesCount = 1;
+	private static final int maxId = 0xFFFF;
 }
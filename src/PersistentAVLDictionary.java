@@ -0,0 +1,78 @@
+/**
+ * <p>The implementation of Dictionary as a persistent AVL Tree of Word. Words 
+ * are never modified once they are in the tree: adding an occurrence copies 
+ * the Word, adds the occurrence to the copy, and puts it in the tree in 
+ * place of the former one, which copies the path leading to it.</p>
+ *
+ * <p>Tagging threads can therefore look words up while the Dictionary is 
+ * being learnt, without any lock, and always see every Word as it was after 
+ * one of the additions. A snapshot of the whole Dictionary can also be taken 
+ * at no cost, so that a tagging job sees the same version of it from start to 
+ * end. The price is paid while learning, as every occurrence allocates a new 
+ * Word and a new path.</p>
+ *
+ * @see PersistentAVLTree
+ */
+public class PersistentAVLDictionary extends PersistentAVLTree<Word> 
+		implements Dictionary
+{
+	/**
+	 * Creates a new empty instance of PersistentAVLDictionary.
+	 */
+	public PersistentAVLDictionary()
+	{
+		super();
+	}
+	
+	/**
+	 * Creates a Dictionary sharing the current version of another one.
+	 * @param source The Dictionary to be shared.
+	 * @see PersistentAVLDictionary#snapshot()
+	 */
+	private PersistentAVLDictionary(PersistentAVLDictionary source)
+	{
+		super(source);
+	}
+	
+	/**
+	 * Adds an occurrence of Word-PartOfSpeech couple while avoiding duplicate 
+	 * entries of Word.
+	 * @param word The value of the word encountered in the corpus
+	 * @param pos The value of the part of speech encountered in the corpus
+	 */
+	@Override
+	public void add(String word, String pos)
+	{
+		this.add(word, pos, 1);
+	}
+	
+	/**
+	 * Adds several occurrences of a Word-PartOfSpeech couple at once. It 
+	 * behaves as many calls to add(String, String) would. The Word is copied 
+	 * with the new occurrences, then the copy replaces it in the tree.
+	 * @param word The value of the word
+	 * @param pos The value of the part of speech
+	 * @param occurrences The number of occurrences to be added
+	 */
+	@Override
+	public synchronized void add(String word, String pos, int occurrences)
+	{
+		if (word.isEmpty() || pos.isEmpty())
+			throw new IllegalArgumentException();
+		Word current = this.lookup(word);
+		Word w = (current == null ? new Word(word) : new Word(current));
+		w.addPartOfSpeech(pos, occurrences);
+		this.put(w);
+	}
+	
+	/**
+	 * Returns a Dictionary holding the current version of this one, which is 
+	 * not affected by any later addition to this one.
+	 * @return A new instance of PersistentAVLDictionary sharing every Word 
+	 * of this one.
+	 */
+	public PersistentAVLDictionary snapshot()
+	{
+		return new PersistentAVLDictionary(this);
+	}
+}
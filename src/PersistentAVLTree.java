@@ -0,0 +1,308 @@
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * <p>A persistent variant of AVLTree, whose nodes are never modified once 
+ * built. Inserting a value copies the nodes on its path from the root, 
+ * rebalancing the copies on the way up, and shares every other node with the 
+ * previous version of the tree; the new root is then published with a single 
+ * volatile write.</p>
+ *
+ * <p>As a consequence, a reader always browses a complete and balanced 
+ * version of the tree, without taking any lock, even while another thread 
+ * keeps inserting. Insertions are serialised with one another. As in 
+ * AVLTree, values are compared through their String representation, and 
+ * removing a value has not been implemented.</p>
+ *
+ * @param <T> The type of values contained in the tree.
+ * @see AVLTree
+ */
+public class PersistentAVLTree<T> implements Iterable<T>
+{
+	/**
+	 * Creates a new empty tree.
+	 */
+	public PersistentAVLTree()
+	{
+		this.root = null;
+	}
+	
+	/**
+	 * Creates a tree sharing the current version of another one. Both trees 
+	 * can then be modified independently.
+	 * @param source The tree to be shared.
+	 */
+	protected PersistentAVLTree(PersistentAVLTree<T> source)
+	{
+		this.root = source.root;
+	}
+	
+	/**
+	 * Finds and returns a value in the tree.
+	 * @param target The String representation of the value that should be 
+	 * returned.
+	 * @return The value whose String representation is identical to the 
+	 * target argument.
+	 * @throws NoSuchElementException If there is no such value.
+	 * @see PersistentAVLTree#lookup(String)
+	 */
+	public T find(String target) throws NoSuchElementException
+	{
+		T result = this.lookup(target);
+		if (result == null)
+			throw new NoSuchElementException();
+		return result;
+	}
+	
+	/**
+	 * Returns an iterator over every value of the current version of the 
+	 * tree, in order. The tree can be modified during the iteration, which 
+	 * is not affected.
+	 * @return An iterator over every value of the tree.
+	 */
+	@Override
+	public Iterator<T> iterator()
+	{
+		return new InOrderIterator<T>(this.root);
+	}
+	
+	/**
+	 * Finds and returns a value in the current version of the tree, without 
+	 * considering a missing value as an exceptional case.
+	 * @param target The String representation of the value that should be 
+	 * returned.
+	 * @return The value whose String representation is identical to the 
+	 * target argument, or null if there is no such value.
+	 */
+	public T lookup(String target)
+	{
+		Node<T> current = this.root;
+		while (current != null)
+		{
+			int c = current.value.toString().compareTo(target);
+			if (c == 0)
+				return current.value;
+			else if (c > 0)
+				current = current.left;
+			else
+				current = current.right;
+		}
+		return null;
+	}
+	
+	/**
+	 * Inserts a value into the tree, or replaces the value whose String 
+	 * representation is identical, then publishes the new version of the 
+	 * tree.
+	 * @param value The value to be inserted.
+	 */
+	public synchronized void put(T value)
+	{
+		this.root = PersistentAVLTree.putRec(this.root, value,
+				value.toString());
+	}
+	
+	/**
+	 * Builds a node from its value and daughters, rotating it if one of 
+	 * them is two levels higher than the other, which is the case after an 
+	 * insertion.
+	 * @param value The value of the node.
+	 * @param left The left daughter, or null.
+	 * @param right The right daughter, or null.
+	 * @return The root of the resulting balanced tree.
+	 */
+	private static <T> Node<T> balance(T value, Node<T> left, Node<T> right)
+	{
+		int l = PersistentAVLTree.height(left);
+		int r = PersistentAVLTree.height(right);
+		if (l - r == 2)
+		{
+			if (PersistentAVLTree.height(left.right)
+					> PersistentAVLTree.height(left.left))
+			{
+				Node<T> pivot = left.right;
+				return new Node<T>(pivot.value,
+						new Node<T>(left.value, left.left, pivot.left),
+						new Node<T>(value, pivot.right, right));
+			}
+			return new Node<T>(left.value, left.left,
+					new Node<T>(value, left.right, right));
+		}
+		else if (r - l == 2)
+		{
+			if (PersistentAVLTree.height(right.left)
+					> PersistentAVLTree.height(right.right))
+			{
+				Node<T> pivot = right.left;
+				return new Node<T>(pivot.value,
+						new Node<T>(value, left, pivot.left),
+						new Node<T>(right.value, pivot.right, right.right));
+			}
+			return new Node<T>(right.value,
+					new Node<T>(value, left, right.left), right.right);
+		}
+		else
+			return new Node<T>(value, left, right);
+	}
+	
+	/**
+	 * Returns the height of a tree.
+	 * @param node The root of the tree, or null.
+	 * @return The length of its longest branch, or -1 if it is empty.
+	 */
+	private static int height(Node<?> node)
+	{
+		return (node == null ? -1 : node.height);
+	}
+	
+	/**
+	 * The recursive method used by put().
+	 * @param pin The root of the tree we will consider, or null.
+	 * @param value The value to be inserted.
+	 * @param target The String representation of the value.
+	 * @return The root of a new balanced tree holding the value, which 
+	 * shares every node off its path with the former one.
+	 * @see PersistentAVLTree#put(Object)
+	 */
+	private static <T> Node<T> putRec(Node<T> pin, T value, String target)
+	{
+		if (pin == null)
+			return new Node<T>(value, null, null);
+		int c = pin.value.toString().compareTo(target);
+		if (c == 0)
+			return new Node<T>(value, pin.left, pin.right);
+		else if (c > 0)
+			return PersistentAVLTree.balance(pin.value, 
+					PersistentAVLTree.putRec(pin.left, value, target), 
+					pin.right);
+		else
+			return PersistentAVLTree.balance(pin.value, pin.left,
+					PersistentAVLTree.putRec(pin.right, value, target));
+	}
+	
+	/**
+	 * A node of the tree, which cannot be modified.
+	 *
+	 * @param <T> The type of the value of the node.
+	 */
+	private static class Node<T>
+	{
+		/**
+		 * Creates a new node, computing its height from its daughters.
+		 * @param value The value of the node.
+		 * @param left The left daughter, or null.
+		 * @param right The right daughter, or null.
+		 */
+		public Node(T value, Node<T> left, Node<T> right)
+		{
+			this.value = value;
+			this.left = left;
+			this.right = right;
+			int l = PersistentAVLTree.height(left);
+			int r = PersistentAVLTree.height(right);
+			this.height = (l > r ? l : r) + 1;
+		}
+		
+		/**
+		 * The length of the longest branch starting from this node, 0 for a 
+		 * leaf.
+		 */
+		private final int height;
+		
+		/**
+		 * The left daughter, whose values are all lesser, or null.
+		 */
+		private final Node<T> left;
+		
+		/**
+		 * The right daughter, whose values are all greater, or null.
+		 */
+		private final Node<T> right;
+		
+		/**
+		 * The value of the node.
+		 */
+		private final T value;
+	}
+	
+	/**
+	 * An iterator browsing one version of the tree in order. The path from 
+	 * the root to the next value is kept in a stack.
+	 *
+	 * @param <T> The type of values contained in the tree.
+	 */
+	private static class InOrderIterator<T> implements Iterator<T>
+	{
+		/**
+		 * Creates a new iterator over the tree whose root is given.
+		 * @param root The root of the tree, or null if it is empty.
+		 */
+		public InOrderIterator(Node<T> root)
+		{
+			this.path = new ArrayDeque<Node<T>>();
+			this.pushLeft(root);
+		}
+		
+		/**
+		 * Checks whether there is a value left to browse.
+		 * @return True if there is a next value, false otherwise.
+		 */
+		@Override
+		public boolean hasNext()
+		{
+			return !this.path.isEmpty();
+		}
+		
+		/**
+		 * Returns the next value in order.
+		 * @return The next value.
+		 * @throws NoSuchElementException If every value has been browsed.
+		 */
+		@Override
+		public T next()
+		{
+			if (this.path.isEmpty())
+				throw new NoSuchElementException();
+			Node<T> n = this.path.pop();
+			this.pushLeft(n.right);
+			return n.value;
+		}
+		
+		/**
+		 * This operation is not supported.
+		 * @throws UnsupportedOperationException
+		 */
+		@Override
+		public void remove()
+		{
+			throw new UnsupportedOperationException();
+		}
+		
+		/**
+		 * Stacks the given node and its whole leftmost branch.
+		 * @param node The node to start from, or null.
+		 */
+		private void pushLeft(Node<T> node)
+		{
+			while (node != null)
+			{
+				this.path.push(node);
+				node = node.left;
+			}
+		}
+		
+		/**
+		 * The nodes whose left subtree has been browsed but which have not 
+		 * been returned yet. The next value is at the top.
+		 */
+		private final ArrayDeque<Node<T>> path;
+	}
+	
+	/**
+	 * The root of the current version of the tree, or null if it is empty. 
+	 * It is replaced rather than modified, so that it can be read without 
+	 * any lock.
+	 */
+	private volatile Node<T> root;
+}
@@ -21,9 +21,21 @@ public class Result extends ListNode<Result>
 	}
 	
 	/**
-	 * Increments the value of the Result
+	 * Adds the given amount to the value of the Result.
+	 * @param n The amount to be added.
 	 */
-	public synchronized void increment()
+	public void add(int n)
+	{
+		this.value += n;
+	}
+	
+	/**
+	 * Increments the value of the Result. It is not synchronized: a list of 
+	 * Result is only ever modified by one thread, and the Tester sums the 
+	 * lists of its threads once they are done.
+	 * @see Tester#Tester(ColumnarCorpus, Dictionary, int, SentenceWriter)
+	 */
+	public void increment()
 	{
 		this.value += 1;
 	}
@@ -40,7 +52,7 @@ public class Result extends ListNode<Result>
 	/**
 	 * The number of words correctly guessed.
 	 */
-	private volatile int value;
+	private int value;
 	/**
 	 * The default initialisation setting for the value attribute.
 	 * @see Result#Result()
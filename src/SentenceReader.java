@@ -0,0 +1,379 @@
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * <p>An iterator reading the sentences of a corpus file one line at a time, 
+ * so that only the sentence being processed needs to be held in memory. The 
+ * file is closed as soon as its last line has been read, or when close() is 
+ * called.</p>
+ *
+ * <p>Rather than decoding each line into a String and splitting it, the file 
+ * is memory-mapped and its UTF-8 bytes are scanned directly for spaces, 
+ * "__" separators and line breaks. Parts of speech, and optionally words, 
+ * are interned into SymbolTable straight from their bytes, so that the 
+ * String of each distinct one is only decoded once and then shared by all 
+ * its occurrences: the only object then created for each token is its 
+ * Entry. Sentences can also be added to a ColumnarCorpus, whose word table 
+ * is then used instead, in which case no object at all is created per 
+ * token. Files larger than what can be 
+ * mapped at once are mapped one window at a time.</p>
+ *
+ * @see FileHandler#sentences()
+ */
+public class SentenceReader implements Iterator<Sentence>, Closeable
+{
+	/**
+	 * Opens and maps a corpus file.
+	 * @param target The corpus file.
+	 * @throws IOException If the file cannot be opened or mapped.
+	 */
+	public SentenceReader(File target) throws IOException
+	{
+		this(target, 0, target.length(), null);
+	}
+	
+	/**
+	 * Opens and maps a corpus file, interning the words of the sentences 
+	 * returned by next() into a SymbolTable. All the occurrences of a word 
+	 * then share the same String, which is worth it when the sentences are 
+	 * kept in memory.
+	 * @param target The corpus file.
+	 * @param words The table the words are interned into.
+	 * @throws IOException If the file cannot be opened or mapped.
+	 */
+	public SentenceReader(File target, SymbolTable words) throws IOException
+	{
+		this(target, 0, target.length(), words);
+	}
+	
+	/**
+	 * Opens and maps a range of a corpus file, so that only the lines it 
+	 * contains are read. This allows several readers to work on different 
+	 * parts of the same file at once.
+	 * @param target The corpus file.
+	 * @param from The offset of the first byte of the range, which must be the 
+	 * start of a line.
+	 * @param to The offset following the last byte of the range, which must 
+	 * follow a line break or be the size of the file.
+	 * @throws IOException If the file cannot be opened or mapped.
+	 * @throws IllegalArgumentException If the range is not within the file.
+	 */
+	public SentenceReader(File target, long from, long to) throws IOException
+	{
+		this(target, from, to, null);
+	}
+	
+	/**
+	 * Opens and maps a range of a corpus file.
+	 * @param target The corpus file.
+	 * @param from The offset of the first byte of the range.
+	 * @param to The offset following the last byte of the range.
+	 * @param words The table the words are interned into, or null if a new 
+	 * String is to be created for each occurrence.
+	 * @throws IOException If the file cannot be opened or mapped.
+	 * @throws IllegalArgumentException If the range is not within the file.
+	 * @see SentenceReader#SentenceReader(File, long, long)
+	 */
+	private SentenceReader(File target, long from, long to, SymbolTable words)
+			throws IOException
+	{
+		this.channel = new FileInputStream(target).getChannel();
+		if (from < 0 || from > to || to > this.channel.size())
+		{
+			this.channel.close();
+			throw new IllegalArgumentException("Invalid range");
+		}
+		this.size = to;
+		this.scratch = new byte[SentenceReader.defaultLineSize];
+		this.words = words;
+		this.tags = new SymbolTable();
+		this.map(from, SentenceReader.window);
+		if (from == to)
+			this.close();
+	}
+	
+	/**
+	 * Closes the file. Any further call to hasNext() will return false.
+	 * @throws IOException If the file could not be closed.
+	 */
+	@Override
+	public void close() throws IOException
+	{
+		this.closed = true;
+		this.channel.close();
+	}
+	
+	/**
+	 * Checks whether there is a sentence left in the file.
+	 * @return True if there is a next sentence, false otherwise.
+	 */
+	@Override
+	public boolean hasNext()
+	{
+		return !this.closed;
+	}
+	
+	/**
+	 * Tokenises and returns the next sentence in the file.
+	 * @return An instance of Sentence.
+	 * @throws NoSuchElementException If every sentence has been read.
+	 * @throws UncheckedIOException If the file could not be read.
+	 */
+	@Override
+	public Sentence next()
+	{
+		int length = this.trim(this.nextLine());
+		Sentence result = new Sentence();
+		int start = 0;
+		while (start <= length)
+		{
+			int end = this.scan(start, length);
+			String word;
+			if (this.words == null)
+				word = new String(this.scratch, start, this.separator - start, 
+						StandardCharsets.UTF_8);
+			else
+				word = this.words.get(
+						this.words.add(this.scratch, start, this.separator));
+			String pos = this.tags.get(
+					this.tags.add(this.scratch, this.separator + 2, end));
+			result.push(word, pos);
+			start = end + 1;
+		}
+		return result;
+	}
+	
+	/**
+	 * Tokenises the next sentence in the file and adds it after the last one 
+	 * of a ColumnarCorpus. Words are interned into the table of the 
+	 * ColumnarCorpus, so that no String is created for words it already 
+	 * contains.
+	 * @param target The ColumnarCorpus in which the sentence is added.
+	 * @throws NoSuchElementException If every sentence has been read.
+	 * @throws UncheckedIOException If the file could not be read.
+	 * @throws IllegalStateException If there are too many distinct parts of 
+	 * speech.
+	 */
+	public void next(ColumnarCorpus target)
+	{
+		int length = this.trim(this.nextLine());
+		SymbolTable words = target.wordTable();
+		target.newSentence();
+		int start = 0;
+		while (start <= length)
+		{
+			int end = this.scan(start, length);
+			String pos = this.tags.get(
+					this.tags.add(this.scratch, this.separator + 2, end));
+			target.newToken(words.add(this.scratch, start, this.separator), 
+					target.tagId(pos));
+			start = end + 1;
+		}
+	}
+	
+	/**
+	 * This operation is not supported.
+	 * @throws UnsupportedOperationException
+	 */
+	@Override
+	public void remove()
+	{
+		throw new UnsupportedOperationException();
+	}
+	
+	/**
+	 * Maps a window of the file, starting at the given offset.
+	 * @param offset The offset in the file of the first byte to be mapped.
+	 * @param length The number of bytes to be mapped, if the file is long 
+	 * enough.
+	 * @throws IOException If the file could not be mapped.
+	 */
+	private void map(long offset, long length) throws IOException
+	{
+		long l = Math.min(length, this.size - offset);
+		this.buffer = this.channel.map(FileChannel.MapMode.READ_ONLY, offset,
+				l);
+		this.base = offset;
+		this.cursor = 0;
+	}
+	
+	/**
+	 * Copies the next line of the file into the scratch array, closing the 
+	 * file if it was the last one.
+	 * @return The number of bytes of the line.
+	 * @throws NoSuchElementException If every sentence has been read.
+	 * @throws UncheckedIOException If the file could not be read.
+	 */
+	private int nextLine()
+	{
+		if (this.closed)
+			throw new NoSuchElementException();
+		try
+		{
+			int length = this.readLine();
+			if (this.base + this.cursor >= this.size)
+				this.close();
+			return length;
+		}
+		catch (IOException e)
+		{
+			throw new UncheckedIOException(e);
+		}
+	}
+	
+	/**
+	 * Finds the end of the token starting at a given index of the line held 
+	 * in the scratch array. Tokens are separated by single spaces, and each 
+	 * of them is made of a word and a part of speech separated by "__", 
+	 * whose index is stored in the separator attribute.
+	 * @param start The index of the first byte of the token.
+	 * @param length The number of bytes of the line.
+	 * @return The index following the last byte of the token.
+	 * @see SentenceReader#separator
+	 */
+	private int scan(int start, int length)
+	{
+		int end = start;
+		int separator = -1;
+		boolean valid = true;
+		while (end < length && this.scratch[end] != ' ')
+		{
+			if (this.scratch[end] == '_' && end + 1 < length
+					&& this.scratch[end + 1] == '_')
+			{
+				if (separator != -1)
+					valid = false;
+				separator = end;
+				end++;
+			}
+			end++;
+		}
+		if (separator <= start || separator + 2 >= end || !valid)
+		{
+			System.out.println("Invalid word in corpus");
+			System.exit(-1);
+		}
+		this.separator = separator;
+		return end;
+	}
+	
+	/**
+	 * Returns the length of the line held in the scratch array without its 
+	 * trailing spaces.
+	 * @param length The number of bytes of the line.
+	 * @return The number of bytes of the line, trailing spaces excluded.
+	 */
+	private int trim(int length)
+	{
+		while (length > 0 && this.scratch[length - 1] == ' ')
+			length--;
+		return length;
+	}
+	
+	/**
+	 * Copies the next line of the file into the scratch array, without its 
+	 * line break, and moves the cursor after it. The scratch array grows and 
+	 * another window of the file is mapped if needed.
+	 * @return The number of bytes of the line.
+	 * @throws IOException If the file could not be mapped.
+	 */
+	private int readLine() throws IOException
+	{
+		int end = this.cursor;
+		int limit = this.buffer.limit();
+		while (true)
+		{
+			while (end < limit && this.buffer.get(end) != '\n')
+				end++;
+			if (end < limit || this.base + limit >= this.size)
+				break;
+			long width = Math.max(SentenceReader.window, 
+					2L * (end - this.cursor));
+			if (width > Integer.MAX_VALUE)
+				throw new IOException("Line too long");
+			end -= this.cursor;
+			this.map(this.base + this.cursor, width);
+			limit = this.buffer.limit();
+		}
+		int length = end - this.cursor;
+		if (length > this.scratch.length)
+			this.scratch = new byte[Math.max(length, 2 * this.scratch.length)];
+		this.buffer.position(this.cursor);
+		this.buffer.get(this.scratch, 0, length);
+		this.cursor = (end < limit ? end + 1 : end);
+		if (length > 0 && this.scratch[length - 1] == '\r')
+			length--;
+		return length;
+	}
+	
+	/**
+	 * The offset in the file of the first byte of the mapped window.
+	 */
+	private long base;
+	
+	/**
+	 * The mapped window of the file.
+	 */
+	private MappedByteBuffer buffer;
+	
+	/**
+	 * The channel of the corpus file.
+	 */
+	private final FileChannel channel;
+	
+	/**
+	 * Whether the whole file has been read or the reader has been closed.
+	 */
+	private boolean closed;
+	
+	/**
+	 * The index in the mapped window of the first byte of the next line.
+	 */
+	private int cursor;
+	
+	/**
+	 * The array into which each line is copied before being tokenised.
+	 */
+	private byte[] scratch;
+	
+	/**
+	 * The index in the scratch array of the "__" separating the word and the 
+	 * part of speech of the last token scanned.
+	 */
+	private int separator;
+	
+	/**
+	 * The offset following the last byte to be read, which is the size of the 
+	 * corpus file unless only a range of it is read.
+	 */
+	private final long size;
+	
+	/**
+	 * The parts of speech already encountered.
+	 */
+	private final SymbolTable tags;
+	
+	/**
+	 * The table the words returned by next() are interned into, or null if 
+	 * they are not.
+	 */
+	private final SymbolTable words;
+	
+	/**
+	 * The default size of the scratch array.
+	 */
+	private static final int defaultLineSize = 4096;
+	
+	/**
+	 * The default number of bytes mapped at once.
+	 */
+	private static final long window = 1L << 28;
+}
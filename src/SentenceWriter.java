@@ -0,0 +1,336 @@
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * <p>A writer saving sentences into a corpus file one at a time, as soon as 
+ * they are available. Sentences are encoded into a buffer of bounded size, 
+ * so the memory needed does not depend on the size of the corpus, and they 
+ * are left untouched.</p>
+ *
+ * <p>The buffer can optionally be flushed to the disk by a background 
+ * thread: filled chunks are then handed over to this thread, while encoding 
+ * goes on into another chunk. As the number of chunks is bounded, encoding 
+ * waits for the disk whenever it is faster.</p>
+ *
+ * @see FileHandler#writer(boolean)
+ */
+public class SentenceWriter implements Closeable
+{
+	/**
+	 * Creates the corpus file, or empties it if it already exists.
+	 * @param target The corpus file.
+	 * @param background Whether the buffer should be flushed by a background 
+	 * thread.
+	 * @throws IOException If the file could not be opened.
+	 */
+	public SentenceWriter(File target, boolean background) throws IOException
+	{
+		OutputStream out = new FileOutputStream(target);
+		if (background)
+			out = new BackgroundOutputStream(out);
+		else
+			out = new BufferedOutputStream(out, SentenceWriter.chunkSize);
+		this.writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+	}
+	
+	/**
+	 * Flushes what remains in the buffer and closes the file.
+	 * @throws IOException If the file could not be written or closed.
+	 */
+	@Override
+	public void close() throws IOException
+	{
+		this.writer.close();
+	}
+	
+	/**
+	 * Writes a sentence as one line of the corpus, in the same format as the 
+	 * one read by SentenceReader. The sentence is not modified.
+	 * @param s The Sentence to be written.
+	 * @throws IOException If the file could not be written.
+	 */
+	public void write(Sentence s) throws IOException
+	{
+		Entry e = s.peek();
+		while (e != null)
+		{
+			this.writer.write(e.value());
+			this.writer.write("__");
+			this.writer.write(e.partOfSpeech());
+			this.writer.write(' ');
+			e = (e.hasNext() ? e.next() : null);
+		}
+		this.writer.write('\n');
+	}
+	
+	/**
+	 * Writes a sentence of a ColumnarCorpus as one line of the corpus, in the 
+	 * same format as write(Sentence).
+	 * @param c The ColumnarCorpus holding the sentence.
+	 * @param key The key of the sentence.
+	 * @throws IOException If the file could not be written.
+	 * @see SentenceWriter#write(Sentence)
+	 */
+	public void write(ColumnarCorpus c, int key) throws IOException
+	{
+		for (int i = c.start(key) ; i < c.end(key) ; i++)
+		{
+			this.writer.write(c.wordTable().get(c.word(i)));
+			this.writer.write("__");
+			this.writer.write(c.tagTable().get(c.tag(i)));
+			this.writer.write(' ');
+		}
+		this.writer.write('\n');
+	}
+	
+	/**
+	 * A stream copying the bytes it receives into chunks, which are written 
+	 * to the underlying stream by a background thread once full.
+	 */
+	private static class BackgroundOutputStream extends OutputStream
+	{
+		/**
+		 * Creates a new stream and starts its background thread.
+		 * @param out The stream the chunks are written to.
+		 */
+		public BackgroundOutputStream(OutputStream out)
+		{
+			this.out = out;
+			this.full = new ArrayBlockingQueue<Chunk>(SentenceWriter.chunks);
+			this.free = new ArrayBlockingQueue<Chunk>(SentenceWriter.chunks);
+			for (int i = 1 ; i < SentenceWriter.chunks ; i++)
+				this.free.add(new Chunk());
+			this.current = new Chunk();
+			this.flusher = new Thread("SentenceWriter")
+			{
+				@Override
+				public void run()
+				{
+					BackgroundOutputStream.this.flushChunks();
+				}
+			};
+			this.flusher.setDaemon(true);
+			this.flusher.start();
+		}
+		
+		/**
+		 * Hands the last chunk over to the background thread, waits for it to 
+		 * be written and closes the underlying stream.
+		 * @throws IOException If any chunk could not be written.
+		 */
+		@Override
+		public void close() throws IOException
+		{
+			if (this.current == null)
+				return;
+			try
+			{
+				this.full.put(this.current);
+				this.current = null;
+				this.full.put(new Chunk(0));
+				this.flusher.join();
+			}
+			catch (InterruptedException e)
+			{
+				throw new InterruptedIOException();
+			}
+			this.out.close();
+			this.checkError();
+		}
+		
+		/**
+		 * Writes one byte.
+		 * @param b The byte to be written.
+		 * @throws IOException If a previous chunk could not be written.
+		 */
+		@Override
+		public void write(int b) throws IOException
+		{
+			if (this.current.length == this.current.data.length)
+				this.handOver();
+			this.current.data[this.current.length] = (byte) b;
+			this.current.length++;
+		}
+		
+		/**
+		 * Writes a range of bytes.
+		 * @param b The bytes to be written.
+		 * @param off The index of the first byte.
+		 * @param len The number of bytes.
+		 * @throws IOException If a previous chunk could not be written.
+		 */
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException
+		{
+			while (len > 0)
+			{
+				if (this.current.length == this.current.data.length)
+					this.handOver();
+				int n = Math.min(len,
+						this.current.data.length - this.current.length);
+				System.arraycopy(b, off, this.current.data, this.current.length,
+						n);
+				this.current.length += n;
+				off += n;
+				len -= n;
+			}
+		}
+		
+		/**
+		 * Throws the error met by the background thread, if any.
+		 * @throws IOException If a chunk could not be written.
+		 */
+		private void checkError() throws IOException
+		{
+			if (this.error != null)
+				throw this.error;
+		}
+		
+		/**
+		 * The loop of the background thread, which writes full chunks until 
+		 * it receives an empty one. After an error, chunks are only recycled 
+		 * so that the writing thread is never blocked.
+		 */
+		private void flushChunks()
+		{
+			while (true)
+			{
+				Chunk c;
+				try
+				{
+					c = this.full.take();
+				}
+				catch (InterruptedException e)
+				{
+					this.error = new InterruptedIOException();
+					return;
+				}
+				if (c.data.length == 0)
+					return;
+				if (this.error == null)
+				{
+					try
+					{
+						this.out.write(c.data, 0, c.length);
+					}
+					catch (IOException e)
+					{
+						this.error = e;
+					}
+				}
+				c.length = 0;
+				this.free.offer(c);
+			}
+		}
+		
+		/**
+		 * Hands the current chunk over to the background thread and takes a 
+		 * free one, waiting for one to be written if none is available.
+		 * @throws IOException If a previous chunk could not be written.
+		 */
+		private void handOver() throws IOException
+		{
+			this.checkError();
+			try
+			{
+				this.full.put(this.current);
+				this.current = this.free.take();
+			}
+			catch (InterruptedException e)
+			{
+				throw new InterruptedIOException();
+			}
+		}
+		
+		/**
+		 * The chunk being filled, or null once the stream has been closed.
+		 */
+		private Chunk current;
+		
+		/**
+		 * The first error met by the background thread, or null.
+		 */
+		private volatile IOException error;
+		
+		/**
+		 * The background thread.
+		 */
+		private final Thread flusher;
+		
+		/**
+		 * The chunks which have been written and can be filled again.
+		 */
+		private final BlockingQueue<Chunk> free;
+		
+		/**
+		 * The chunks waiting to be written, in order.
+		 */
+		private final BlockingQueue<Chunk> full;
+		
+		/**
+		 * The stream the chunks are written to.
+		 */
+		private final OutputStream out;
+	}
+	
+	/**
+	 * A buffer of bytes along with the number of bytes it holds.
+	 */
+	private static class Chunk
+	{
+		/**
+		 * Creates a new empty chunk of the default size.
+		 */
+		public Chunk()
+		{
+			this(SentenceWriter.chunkSize);
+		}
+		
+		/**
+		 * Creates a new empty chunk.
+		 * @param size The size of the chunk. A chunk of size 0 tells the 
+		 * background thread to stop.
+		 */
+		public Chunk(int size)
+		{
+			this.data = new byte[size];
+			this.length = 0;
+		}
+		
+		/**
+		 * The bytes of the chunk.
+		 */
+		public final byte[] data;
+		
+		/**
+		 * The number of bytes held in the chunk.
+		 */
+		public int length;
+	}
+	
+	/**
+	 * The writer encoding the sentences.
+	 */
+	private final Writer writer;
+	
+	/**
+	 * The number of chunks a background-flushed writer uses.
+	 */
+	private static final int chunks = 4;
+	
+	/**
+	 * The size of a chunk, and of the buffer of a writer flushed in the 
+	 * foreground.
+	 */
+	private static final int chunkSize = 1 << 20;
+}
@@ -0,0 +1,243 @@
+import java.nio.charset.StandardCharsets;
+
+/**
+ * <p>A table giving each distinct String it is given a small integer 
+ * identifier, starting at 0 and in order of first appearance, so that 
+ * Strings can be stored and compared as integers. Identifiers can be turned 
+ * back into their String at any time.</p>
+ *
+ * <p>The table is a hashtable using open addressing and linear probing, 
+ * whose slots only hold identifiers: the Strings themselves are stored once, 
+ * in an array indexed by identifier.</p>
+ */
+public class SymbolTable
+{
+	/**
+	 * Creates a new empty instance of SymbolTable.
+	 */
+	public SymbolTable()
+	{
+		this.slots = new int[SymbolTable.defaultSize * 2];
+		this.values = new String[SymbolTable.defaultSize];
+		this.hashes = new int[SymbolTable.defaultSize];
+		this.count = 0;
+	}
+	
+	/**
+	 * Creates a copy of another SymbolTable, in which the same Strings have 
+	 * the same identifiers. Both tables can then be modified independently.
+	 * @param source The SymbolTable to be copied.
+	 */
+	public SymbolTable(SymbolTable source)
+	{
+		this.slots = source.slots.clone();
+		this.values = source.values.clone();
+		this.hashes = source.hashes.clone();
+		this.count = source.count;
+	}
+	
+	/**
+	 * Returns the identifier of a String given by its UTF-8 bytes, giving it 
+	 * a new one if it is not in the table yet. When the bytes are all ASCII, 
+	 * which is the case of most words, they are hashed and compared as they 
+	 * are: a String is only created the first time they are met.
+	 * @param bytes The array holding the bytes.
+	 * @param from The index of the first byte.
+	 * @param to The index following the last byte.
+	 * @return The identifier of the String.
+	 */
+	public int add(byte[] bytes, int from, int to)
+	{
+		int h = 0;
+		for (int j = from ; j < to ; j++)
+		{
+			if (bytes[j] < 0)
+				return this.add(new String(bytes, from, to - from, 
+						StandardCharsets.UTF_8));
+			h = 31 * h + bytes[j];
+		}
+		h ^= (h >>> 16);
+		int mask = this.slots.length - 1;
+		int i = h & mask;
+		while (this.slots[i] != 0)
+		{
+			int id = this.slots[i] - 1;
+			if (this.hashes[id] == h 
+					&& SymbolTable.matches(this.values[id], bytes, from, to))
+				return id;
+			i = (i + 1) & mask;
+		}
+		return this.insert(new String(bytes, from, to - from, 
+				StandardCharsets.US_ASCII), h, i);
+	}
+	
+	/**
+	 * Returns the identifier of a String, giving it a new one if it is not 
+	 * in the table yet.
+	 * @param value The String to be looked up.
+	 * @return The identifier of the String.
+	 */
+	public int add(String value)
+	{
+		int h = SymbolTable.hash(value);
+		int mask = this.slots.length - 1;
+		int i = h & mask;
+		while (this.slots[i] != 0)
+		{
+			int id = this.slots[i] - 1;
+			if (this.hashes[id] == h && this.values[id].equals(value))
+				return id;
+			i = (i + 1) & mask;
+		}
+		return this.insert(value, h, i);
+	}
+	
+	/**
+	 * Returns the String associated to an identifier.
+	 * @param id The identifier.
+	 * @return The String whose identifier is id.
+	 * @throws IndexOutOfBoundsException If there is no such identifier.
+	 */
+	public String get(int id)
+	{
+		if (id < 0 || id >= this.count)
+			throw new IndexOutOfBoundsException("No such symbol: " + id);
+		return this.values[id];
+	}
+	
+	/**
+	 * Returns the identifier of a String without adding it to the table.
+	 * @param value The String to be looked up.
+	 * @return The identifier of the String, or -1 if it is not in the table.
+	 */
+	public int lookup(String value)
+	{
+		int h = SymbolTable.hash(value);
+		int mask = this.slots.length - 1;
+		int i = h & mask;
+		while (this.slots[i] != 0)
+		{
+			int id = this.slots[i] - 1;
+			if (this.hashes[id] == h && this.values[id].equals(value))
+				return id;
+			i = (i + 1) & mask;
+		}
+		return -1;
+	}
+	
+	/**
+	 * Returns the number of Strings in the table, which is also the 
+	 * identifier the next new String will be given.
+	 * @return The number of Strings in the table.
+	 */
+	public int size()
+	{
+		return this.count;
+	}
+	
+	/**
+	 * Doubles the number of slots and places every identifier again.
+	 */
+	private void grow()
+	{
+		this.slots = new int[this.slots.length * 2];
+		int mask = this.slots.length - 1;
+		for (int id = 0 ; id < this.count ; id++)
+		{
+			int i = this.hashes[id] & mask;
+			while (this.slots[i] != 0)
+				i = (i + 1) & mask;
+			this.slots[i] = id + 1;
+		}
+	}
+	
+	/**
+	 * Gives a new identifier to a String which is not in the table yet.
+	 * @param value The String.
+	 * @param h The hash of the String.
+	 * @param slot The empty slot in which its identifier is put.
+	 * @return The new identifier of the String.
+	 * @see SymbolTable#hash(String)
+	 */
+	private int insert(String value, int h, int slot)
+	{
+		int id = this.count;
+		if (id == this.values.length)
+		{
+			String[] values = new String[id * 2];
+			int[] hashes = new int[id * 2];
+			System.arraycopy(this.values, 0, values, 0, id);
+			System.arraycopy(this.hashes, 0, hashes, 0, id);
+			this.values = values;
+			this.hashes = hashes;
+		}
+		this.values[id] = value;
+		this.hashes[id] = h;
+		this.slots[slot] = id + 1;
+		this.count++;
+		if (this.count * 2 > this.slots.length)
+			this.grow();
+		return id;
+	}
+	
+	/**
+	 * Computes the hash of a String. The high bits of the String hash are 
+	 * folded into the low ones, as only the latter are used to pick a slot. 
+	 * For an ASCII String, it is also the hash add(byte[], int, int) 
+	 * computes from its bytes.
+	 * @param value The String.
+	 * @return The hash of the String.
+	 */
+	private static int hash(String value)
+	{
+		int h = value.hashCode();
+		return h ^ (h >>> 16);
+	}
+	
+	/**
+	 * Checks whether a String is made of the given ASCII bytes.
+	 * @param value The String.
+	 * @param bytes The array holding the bytes.
+	 * @param from The index of the first byte.
+	 * @param to The index following the last byte.
+	 * @return True if every character of the String is the matching byte, 
+	 * false otherwise.
+	 */
+	private static boolean matches(String value, byte[] bytes, int from, 
+			int to)
+	{
+		if (value.length() != to - from)
+			return false;
+		for (int j = from ; j < to ; j++)
+			if (value.charAt(j - from) != bytes[j])
+				return false;
+		return true;
+	}
+	
+	/**
+	 * The number of Strings in the table.
+	 */
+	private int count;
+	
+	/**
+	 * The hashes of the Strings, indexed by identifier.
+	 * @see SymbolTable#hash(String)
+	 */
+	private int[] hashes;
+	
+	/**
+	 * The slots of the hashtable, each holding an identifier plus one, or 0 
+	 * if it is empty. Its length is always a power of two.
+	 */
+	private int[] slots;
+	
+	/**
+	 * The Strings of the table, indexed by identifier.
+	 */
+	private String[] values;
+	
+	/**
+	 * The default number of Strings the table can hold before growing.
+	 */
+	private static final int defaultSize = 64;
+}
@@ -1,10 +1,16 @@
-import java.util.NoSuchElementException;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 /**
  * A class whose role is to confront a corpus to a dictionary. The result of 
- * the confrontation can then be fetched through the accessors.
+ * the confrontation can then be fetched through the accessors. As the 
+ * dictionary is only read, it is best given as a FrozenDictionary, whose 
+ * lookups touch the least memory.
  * @author Antoine Lafouasse
  *
+ * @see FrozenDictionary
  */
 public class Tester
 {
@@ -14,23 +20,111 @@ public class Tester
 	 * @param d The dictionary to be tested
 	 * @param c The corpus to be used as reference
 	 */
-	public Tester(Corpus c)
+	public Tester(Corpus c, Dictionary d)
 	{
+		this.dictionary = d;
 		this.guess = new Corpus();
 		this.totalGuesses = Tester.defaultTotalStart;
 		this.firstGuess = new Result();
 		for (int i : c.keys())
+			this.guess.put(i, this.test(c.get(i)));
+	}
+	
+	/**
+	 * Builds a new instance of Tester and confronts a stream of sentences and 
+	 * the dictionary. Only the guessed corpus is held in memory, in which the 
+	 * n-th sentence read is stored with n as its key.
+	 * @param sentences The sentences to be used as reference, in order.
+	 * @param d The dictionary to be tested
+	 * @see FileHandler#sentences()
+	 */
+	public Tester(Iterator<Sentence> sentences, Dictionary d)
+	{
+		this.dictionary = d;
+		this.guess = new Corpus();
+		this.totalGuesses = Tester.defaultTotalStart;
+		this.firstGuess = new Result();
+		int i = 0;
+		while (sentences.hasNext())
 		{
-			Sentence s = new Sentence();
-			while (!c.get(i).isEmpty())
-			{
-				Entry e = c.get(i).pop();
-				s.push(e.value(), this.test(e));
-			}
-			this.guess.put(i, s);
+			this.guess.put(i, this.test(sentences.next()));
+			i++;
 		}
 	}
 	
+	/**
+	 * Builds a new instance of Tester, confronts a stream of sentences and 
+	 * the dictionary, and writes each guessed sentence as soon as it is 
+	 * known. Nothing but the current sentence is held in memory: as a 
+	 * consequence, the guessed corpus returned by getCorpus() is empty.
+	 * @param sentences The sentences to be used as reference, in order.
+	 * @param d The dictionary to be tested
+	 * @param out The writer the guessed sentences are saved with
+	 * @throws IOException If a sentence could not be written.
+	 * @see FileHandler#writer(boolean)
+	 */
+	public Tester(Iterator<Sentence> sentences, Dictionary d, 
+			SentenceWriter out) throws IOException
+	{
+		this.dictionary = d;
+		this.guess = new Corpus();
+		this.totalGuesses = Tester.defaultTotalStart;
+		this.firstGuess = new Result();
+		while (sentences.hasNext())
+			out.write(this.test(sentences.next()));
+	}
+	
+	/**
+	 * Builds a new instance of Tester, confronts the corpus and the dictionary 
+	 * with several threads, then writes the guessed corpus. The sentences are 
+	 * split into ranges of keys, each of which is tagged by one task with 
+	 * scores of its own, so that no counter is shared between threads; the 
+	 * scores are then summed. The guessed parts of speech are stored as 
+	 * identifiers in a single array shared by the tasks, each of them writing 
+	 * its own range of tokens, and the guessed corpus returned by getCorpus() 
+	 * is empty. The dictionary is searched once per distinct word rather than 
+	 * once per token, so that tagging a token only compares integers. The 
+	 * file and the accuracy are identical to those produced by the sequential 
+	 * constructors.
+	 * @param c The corpus to be used as reference, which is not modified, 
+	 * apart from the part of speech "UKN" being added to its table.
+	 * @param d The dictionary to be tested, which must not be modified 
+	 * meanwhile
+	 * @param threads The number of threads to be used
+	 * @param out The writer the guessed sentences are saved with
+	 * @throws IOException If a sentence could not be written.
+	 * @throws IllegalArgumentException If threads is not positive.
+	 * @throws IllegalStateException If there are too many distinct parts of 
+	 * speech.
+	 * @see Tester#Tester(Iterator, Dictionary, SentenceWriter)
+	 */
+	public Tester(ColumnarCorpus c, Dictionary d, int threads, 
+			SentenceWriter out) throws IOException
+	{
+		if (threads <= 0)
+			throw new IllegalArgumentException("There must be one thread at " +
+					"least");
+		this.dictionary = d;
+		this.guess = new Corpus();
+		byte unknown = c.tagId(Tester.unknown);
+		int[] ids = new int[c.tagTable().size()];
+		for (int i = 0 ; i < ids.length ; i++)
+			ids[i] = PartOfSpeech.lookup(c.tagTable().get(i));
+		Word[] words = new Word[c.wordTable().size()];
+		for (int i = 0 ; i < words.length ; i++)
+			words[i] = d.lookup(c.wordTable().get(i));
+		byte[] tags = new byte[c.size() == 0 ? 0 : c.end(c.size() - 1)];
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		TagTask task = new TagTask(c, words, ids, tags, unknown, 0, c.size());
+		pool.invoke(task);
+		pool.shutdown();
+		this.totalGuesses = task.totalGuesses;
+		this.firstGuess = task.firstGuess;
+		ColumnarCorpus guessed = new ColumnarCorpus(c, tags);
+		for (int i = 0 ; i < guessed.size() ; i++)
+			out.write(guessed, i);
+	}
+	
 	/**
 	 * Returns the accuracy of the dictionary on the corpus
 	 * @return A ready-to-print message containing each loop's accuracy rounded 
@@ -64,7 +158,7 @@ public class Tester
 	}
 	
 	/**
-	 * Return the corpus with the PartOfSpeech guessed by the dictionary.
+	 * Return the corpus with the parts of speech guessed by the dictionary.
 	 * @return An instance of Corpus
 	 */
 	public Corpus getCorpus()
@@ -73,44 +167,213 @@ public class Tester
 	}
 	
 	/**
-	 * Confronts one entry from a Corpus to the Dictionary.
-	 * @param e The entry from the Corpus to serve as comparison reference.
-	 * @return The part of speech guessed by the Dictionary.
+	 * Confronts one sentence from a Corpus to the Dictionary. The sentence is 
+	 * emptied in the process.
+	 * @param reference The sentence to serve as comparison reference.
+	 * @return The sentence with the parts of speech guessed by the Dictionary.
 	 */
-	private String test(Entry e)
+	private Sentence test(Sentence reference)
 	{
-		this.totalGuesses++;
-		Result r = this.firstGuess;
-		try
+		Sentence s = new Sentence();
+		while (!reference.isEmpty())
 		{
-			PartOfSpeech p = Dictionary.getInstance().find(e.value())
-					.getFirst();
-			while (true)
+			Entry e = reference.pop();
+			this.totalGuesses++;
+			if (Tester.guess(this.dictionary.lookup(e.value()), 
+					PartOfSpeech.lookup(e.partOfSpeech()), this.firstGuess))
+				s.push(e.value(), e.partOfSpeech());
+			else
+				s.push(e.value(), Tester.unknown);
+		}
+		return s;
+	}
+	
+	/**
+	 * Confronts one word from a Corpus to the Dictionary. The part of speech 
+	 * guessed by the Dictionary is the reference one if the Dictionary knows 
+	 * it for this word, and "UKN" otherwise.
+	 * @param w The Word found in the Dictionary for the word to serve as 
+	 * comparison reference, or null if there is none.
+	 * @param tag The identifier of the reference part of speech of the word, 
+	 * or -1 if it is not known.
+	 * @param first The first Result of the list in which the rank of the 
+	 * correct guess is counted. The list is extended up to that rank, or up 
+	 * to the last rank of the word if the guess is wrong.
+	 * @return True if the part of speech has been guessed, false otherwise.
+	 * @see PartOfSpeech#lookup(String)
+	 */
+	private static boolean guess(Word w, int tag, Result first)
+	{
+		if (w == null)
+			return false;
+		int rank = (tag == -1 ? -1 : w.rank(tag));
+		Result r = first;
+		int depth = (rank == -1 ? w.size() - 1 : rank);
+		for (int i = 0 ; i < depth ; i++)
+		{
+			if (!r.hasNext())
+				r.setNext(new Result());
+			r = r.next();
+		}
+		if (rank == -1)
+			return false;
+		r.increment();
+		return true;
+	}
+	
+	/**
+	 * Adds the values of a list of Result to another one, rank by rank. The 
+	 * target list is extended if it is shorter than the source.
+	 * @param target The first Result of the list to be incremented.
+	 * @param source The first Result of the list to be read.
+	 */
+	private static void merge(Result target, Result source)
+	{
+		while (true)
+		{
+			target.add(source.value());
+			if (!source.hasNext())
+				break;
+			source = source.next();
+			if (!target.hasNext())
+				target.setNext(new Result());
+			target = target.next();
+		}
+	}
+	
+	/**
+	 * The task tagging a range of sentences. Ranges larger than a given 
+	 * threshold are split in two halves which are tagged separately, then 
+	 * the scores of the second one are added to those of the first.
+	 */
+	private static class TagTask extends RecursiveAction
+	{
+		/**
+		 * Creates a new task for a range of sentences.
+		 * @param c The ColumnarCorpus to be used as reference.
+		 * @param words The Word found in the dictionary for each word of the 
+		 * reference, or null if there is none.
+		 * @param ids The identifier given by PartOfSpeech to each part of 
+		 * speech of the reference, or -1 if it is not known.
+		 * @param tags The array in which the identifiers of the guessed parts 
+		 * of speech are put, one per token of the reference.
+		 * @param unknown The identifier of "UKN" in the reference.
+		 * @param from The key of the first sentence in the range.
+		 * @param to The key following the last sentence in the range.
+		 */
+		public TagTask(ColumnarCorpus c, Word[] words, int[] ids, 
+				byte[] tags, byte unknown, int from, int to)
+		{
+			this.corpus = c;
+			this.words = words;
+			this.ids = ids;
+			this.tags = tags;
+			this.unknown = unknown;
+			this.from = from;
+			this.to = to;
+			this.firstGuess = new Result();
+			this.totalGuesses = Tester.defaultTotalStart;
+		}
+		
+		/**
+		 * Tags the range of sentences and computes its scores.
+		 */
+		@Override
+		protected void compute()
+		{
+			if (this.to - this.from <= TagTask.threshold)
 			{
-				if (p.toString().equals(e.partOfSpeech()))
-				{
-					r.increment();
-					return p.toString();
-				}
-				else if (p.hasNext())
-				{
-					p = p.next();
-					if (!r.hasNext())
-						r.setNext(new Result());
-					r = r.next();
-				}
-				else
+				if (this.from == this.to)
+					return;
+				int end = this.corpus.end(this.to - 1);
+				for (int i = this.corpus.start(this.from) ; i < end ; i++)
 				{
-					return "UKN";
+					int tag = this.corpus.tag(i);
+					this.totalGuesses++;
+					if (Tester.guess(this.words[this.corpus.word(i)], 
+							this.ids[tag], this.firstGuess))
+						this.tags[i] = (byte) tag;
+					else
+						this.tags[i] = this.unknown;
 				}
+				return;
 			}
+			int middle = (this.from + this.to) >>> 1;
+			TagTask left = new TagTask(this.corpus, this.words, this.ids, 
+					this.tags, this.unknown, this.from, middle);
+			TagTask right = new TagTask(this.corpus, this.words, this.ids, 
+					this.tags, this.unknown, middle, this.to);
+			invokeAll(left, right);
+			this.totalGuesses = left.totalGuesses + right.totalGuesses;
+			this.firstGuess = left.firstGuess;
+			Tester.merge(this.firstGuess, right.firstGuess);
 		}
-		catch (NoSuchElementException ex)
-		{
-			return "UKN";
-		}
+		
+		/**
+		 * The ColumnarCorpus to be used as reference.
+		 */
+		private final ColumnarCorpus corpus;
+		
+		/**
+		 * The key of the first sentence in the range.
+		 */
+		private final int from;
+		
+		/**
+		 * The identifier given by PartOfSpeech to each part of speech of the 
+		 * reference, or -1 if it is not known.
+		 */
+		private final int[] ids;
+		
+		/**
+		 * The identifiers of the guessed parts of speech, shared by every 
+		 * task, each of which only writes the tokens of its range.
+		 */
+		private final byte[] tags;
+		
+		/**
+		 * The key following the last sentence in the range.
+		 */
+		private final int to;
+		
+		/**
+		 * The identifier of "UKN" in the reference.
+		 */
+		private final byte unknown;
+		
+		/**
+		 * The Word found in the dictionary for each word of the reference, or 
+		 * null if there is none.
+		 */
+		private final Word[] words;
+		
+		/**
+		 * The number of words correctly guessed in the range, which is only 
+		 * ever modified by the thread running the task.
+		 */
+		private Result firstGuess;
+		
+		/**
+		 * The number of words in the range.
+		 */
+		private int totalGuesses;
+		
+		/**
+		 * The number of sentences under which a range is not split anymore.
+		 */
+		private static final int threshold = 64;
+		
+		/**
+		 * Default value of a serializable class serial version UID.
+		 */
+		private static final long serialVersionUID = 1L;
 	}
 	
+	/**
+	 * The dictionary being tested.
+	 */
+	private final Dictionary dictionary;
+	
 	/**
 	 * The number of words that have been correctly guessed.
 	 */
@@ -129,7 +392,12 @@ public class Tester
 	/**
 	 * The default initialisation value for the totalGuesses attribute.
 	 * @see Tester#totalGuesses
-	 * @see Tester#Tester(Corpus)
+	 * @see Tester#Tester(Corpus, Dictionary)
 	 */
 	private static final int defaultTotalStart = 0;
+	
+	/**
+	 * The part of speech given to words the dictionary cannot tag.
+	 */
+	private static final String unknown = "UKN";
 }
@@ -1,17 +1,27 @@
-import java.util.NoSuchElementException;
+import java.util.Arrays;
 
 /**
- * <p>The representation of a word. It contains a double-linked list containing 
- * every Part of Speech it has been associated to. This list can (and is 
- * supposed to) be sorted.</p>
+ * <p>The representation of a word. It contains every part of speech it has 
+ * been associated to, along with the number of times it has been, in a 
+ * single compact array of int. Parts of speech are stored as the identifiers 
+ * they are given by PartOfSpeech, so that finding one takes a few integer 
+ * comparisons.</p>
+ * 
+ * <p>The array is kept ranked by descending order of occurrences as they are 
+ * added: a part of speech whose occurrences grow is moved forward past those 
+ * it now outnumbers, which is a single step in the usual case. Parts of 
+ * speech with as many occurrences are ranked by order of first appearance. 
+ * The k-th best part of speech can thus be read directly at any time, and 
+ * the word never needs to be sorted.</p>
  * 
  * @author Antoine Lafouasse
  *
+ * @see PartOfSpeech
  */
 public class Word extends AVLNode<Word>
 {
 	/**
-	 * Creates a new instance of Word, with an empty list of PartOfSpeech.
+	 * Creates a new instance of Word, with no part of speech.
 	 * 
 	 * @param name The value of the word.
 	 * @throws IllegalArgumentException If name is empty.
@@ -22,45 +32,93 @@ public class Word extends AVLNode<Word>
 		if (name == "")
 			throw new IllegalArgumentException("Word name cannot be empty.");
 		this.name = name;
-		this.pos = new Queue<PartOfSpeech>();
+		this.counts = Word.empty;
+	}
+	
+	/**
+	 * Creates a copy of a Word, with the same parts of speech ranked in the 
+	 * same order. The copy can then be modified without changing the source.
+	 * 
+	 * @param source The Word to be copied.
+	 */
+	public Word(Word source)
+	{
+		super();
+		this.name = source.name;
+		synchronized (source)
+		{
+			this.counts = source.counts.clone();
+		}
 	}
 	
 	/**
-	 * Adds a part of speech to the list. All that is needed is a String 
+	 * Adds a part of speech to the word. All that is needed is a String 
 	 * containing the value that needs to be inserted. The method will then 
 	 * add either an occurrence or a new part of speech altogether, and mind 
-	 * not to create any duplicate objects.
+	 * not to create any duplicate. This method is thread-safe so that 
+	 * several threads can add occurrences to the same Word.
 	 * 
 	 * @param name The part of speech associated to the word found in the 
 	 * corpus.
 	 */
 	public void addPartOfSpeech(String name)
 	{
-		if (name.isEmpty())
+		this.addPartOfSpeech(name, 1);
+	}
+	
+	/**
+	 * Adds several occurrences of a part of speech at once. It behaves as 
+	 * many calls to addPartOfSpeech(String) would.
+	 * 
+	 * @param name The part of speech associated to the word.
+	 * @param occurrences The number of occurrences to be added.
+	 * @throws IllegalArgumentException If name is empty or occurrences is not 
+	 * positive.
+	 * @see Word#addPartOfSpeech(String)
+	 */
+	public void addPartOfSpeech(String name, int occurrences)
+	{
+		if (name.isEmpty() || occurrences <= 0)
 			throw new IllegalArgumentException();
-		if (this.pos.isEmpty())
-			this.pos.push(new PartOfSpeech(name));
+		this.addPartOfSpeech(PartOfSpeech.id(name), occurrences);
+	}
+	
+	/**
+	 * Adds several occurrences of a part of speech given by its identifier, 
+	 * then moves it forward past the parts of speech it now outnumbers.
+	 * 
+	 * @param tag The identifier of the part of speech.
+	 * @param occurrences The number of occurrences to be added.
+	 * @throws IllegalArgumentException If occurrences is not positive.
+	 * @see Word#addPartOfSpeech(String, int)
+	 */
+	public synchronized void addPartOfSpeech(int tag, int occurrences)
+	{
+		if (occurrences <= 0)
+			throw new IllegalArgumentException();
+		int rank = this.rank(tag);
+		if (rank == -1)
+		{
+			rank = this.size();
+			int length = this.counts.length;
+			this.counts = Arrays.copyOf(this.counts, length + 2);
+			this.counts[length] = (rank << Word.tagBits) | tag;
+			this.counts[length + 1] = occurrences;
+		}
 		else
+			this.counts[2 * rank + 1] += occurrences;
+		int[] c = this.counts;
+		int key = c[2 * rank];
+		int count = c[2 * rank + 1];
+		while (rank > 0 && (count > c[2 * rank - 1] 
+				|| (count == c[2 * rank - 1] && key < c[2 * rank - 2])))
 		{
-			PartOfSpeech current = this.getFirst();
-			boolean found = false;
-			boolean proceed = true;
-			while (proceed)
-			{
-				if (current.toString().equals(name))
-				{
-					current.addOccurrence();
-					found = true;
-					break;
-				}
-				else if (current.hasNext())
-					current = current.next();
-				else
-					proceed = false;
-			}
-			if (!found)
-				this.pos.push(new PartOfSpeech(name));
+			c[2 * rank] = c[2 * rank - 2];
+			c[2 * rank + 1] = c[2 * rank - 1];
+			rank--;
 		}
+		c[2 * rank] = key;
+		c[2 * rank + 1] = count;
 	}
 	
 	/**
@@ -109,93 +167,106 @@ public class Word extends AVLNode<Word>
 	}
 	
 	/**
-	 * Returns the first element in the list, or throws an exception if the 
-	 * list is empty.
-	 * 
-	 * @see Enumeration
-	 * @return The PartOfSpeech at the top of the list
-	 * @throws NoSuchElementException If the list is empty
+	 * Returns the number of times the part of speech of a given rank has 
+	 * been associated to the word.
+	 * @param rank The rank of the part of speech, from 0 on.
+	 * @return The number of occurrences of the part of speech.
+	 * @throws IndexOutOfBoundsException If there is no such rank.
 	 */
-	public PartOfSpeech getFirst()
+	public int occurrences(int rank)
 	{
-		return this.pos.peek();
+		if (rank < 0 || rank >= this.size())
+			throw new IndexOutOfBoundsException("No such rank: " + rank);
+		return this.counts[2 * rank + 1];
 	}
 	
 	/**
-	 * Sorts the List of PartOfSpeech by descending order of occurrences.
+	 * Returns the value of the part of speech of a given rank.
+	 * @param rank The rank of the part of speech, from 0 on.
+	 * @return The value of the part of speech.
+	 * @throws IndexOutOfBoundsException If there is no such rank.
 	 */
-	public void sort()
+	public String partOfSpeech(int rank)
 	{
-		this.pos = this.mergeSort(this.pos);
+		return PartOfSpeech.name(this.tag(rank));
 	}
-
+	
 	/**
-	 * Returns the word's value
-	 * @return the word's value
+	 * Returns the rank of a part of speech.
+	 * @param tag The identifier of the part of speech.
+	 * @return The rank of the part of speech from 0 on, or -1 if it has never 
+	 * been associated to the word.
 	 */
-	@Override
-	public String toString()
+	public int rank(int tag)
 	{
-		return this.name;
+		int[] c = this.counts;
+		for (int i = 0 ; i < c.length ; i += 2)
+			if ((c[i] & Word.tagMask) == tag)
+				return i / 2;
+		return -1;
 	}
 	
 	/**
-	 * Merges two Queues already sorted into one. 
-	 * @param left The first Queue to merge.
-	 * @param right The second Queue to merge.
-	 * @return The resulting Queue. It must be sorted.
+	 * Returns the rank of the part of speech which was associated to the 
+	 * word in a given position, all parts of speech being ordered by first 
+	 * appearance.
+	 * @param order The position of the part of speech in order of first 
+	 * appearance, from 0 on.
+	 * @return The rank of the part of speech.
+	 * @throws IndexOutOfBoundsException If there is no such position.
 	 */
-	private Queue<PartOfSpeech> merge(
-			Queue<PartOfSpeech> left, Queue<PartOfSpeech> right)
+	public int rankByAppearance(int order)
 	{
-		Queue<PartOfSpeech> result = new Queue<PartOfSpeech>();
-		while (!left.isEmpty() || !right.isEmpty())
-		{
-			if (right.isEmpty())
-				result.push(left.pop());
-			else if (left.isEmpty())
-				result.push(right.pop());
-			else if (left.peek().compareTo(right.peek()) > 0)
-				result.push(left.pop());
-			else
-				result.push(right.pop());
-		}
-		return result;
+		int[] c = this.counts;
+		for (int i = 0 ; i < c.length ; i += 2)
+			if ((c[i] >>> Word.tagBits) == order)
+				return i / 2;
+		throw new IndexOutOfBoundsException("No such position: " + order);
 	}
 	
 	/**
-	 * The implementation of a merge sort on Queue. Its role is to sort it by 
-	 * descending order of occurrences.
-	 * @param target The Queue to be sorted.
-	 * @return The resulting Queue.
+	 * Returns the number of distinct parts of speech associated to the word.
+	 * @return The number of parts of speech.
 	 */
-	private Queue<PartOfSpeech> mergeSort(Queue<PartOfSpeech> target)
+	public int size()
 	{
-		if (target.isSingleton())
-			return target;
-		Queue<PartOfSpeech> left = new Queue<PartOfSpeech>();
-		Queue<PartOfSpeech> right = new Queue<PartOfSpeech>();
-		left.push(target.pop());
-		right.push(target.pop());
-		boolean isLeft = true;
-		while (!target.isEmpty())
-		{
-			if (isLeft)
-			{
-				left.push(target.pop());
-				isLeft = false;
-			}
-			else
-			{
-				right.push(target.pop());
-				isLeft = true;
-			}
-		}
-		left = this.mergeSort(left);
-		right = this.mergeSort(right);
-		return this.merge(left, right);
+		return this.counts.length / 2;
+	}
+	
+	/**
+	 * Returns the identifier of the part of speech of a given rank.
+	 * @param rank The rank of the part of speech, from 0 on.
+	 * @return The identifier of the part of speech.
+	 * @throws IndexOutOfBoundsException If there is no such rank.
+	 */
+	public int tag(int rank)
+	{
+		if (rank < 0 || rank >= this.size())
+			throw new IndexOutOfBoundsException("No such rank: " + rank);
+		return this.counts[2 * rank] & Word.tagMask;
+	}
+
+	/**
+	 * Returns the word's value
+	 * @return the word's value
+	 */
+	@Override
+	public String toString()
+	{
+		return this.name;
 	}
 	
+	/**
+	 * The parts of speech of the word and their occurrences: the identifier 
+	 * of the part of speech of rank k is in the lowest bits of index 2k, 
+	 * above its order of first appearance among the parts of speech of the 
+	 * word, and its number of occurrences is at index 2k+1. The array is 
+	 * replaced by a longer copy whenever a new part of speech is added, which 
+	 * seldom happens.
+	 * @see Word#tagBits
+	 */
+	private int[] counts;
+	
 	/**
 	 * The value of the word. It cannot be changed. Its only accessor is the 
 	 * toString() method.
@@ -204,10 +275,21 @@ public class Word extends AVLNode<Word>
 	private final String name;
 	
 	/**
-	 * The list of PartOfSpeech contained in the Word. While its type is Queue, 
-	 * its methods make it possible to be used as a linked list -- push() can 
-	 * therefore be used as an append() method.
-	 * @see Queue#push(ListNode)
+	 * The array of a word with no part of speech, which is shared.
+	 */
+	private static final int[] empty = new int[0];
+	
+	/**
+	 * The number of bits holding the identifier of a part of speech in 
+	 * counts. The order of first appearance above it takes the remaining 16 
+	 * bits, which is more than enough for the parts of speech of one word.
+	 * @see PartOfSpeech
+	 */
+	private static final int tagBits = 16;
+	
+	/**
+	 * The mask of the bits holding the identifier of a part of speech in 
+	 * counts.
 	 */
-	private Queue<PartOfSpeech> pos;
+	private static final int tagMask = (1 << Word.tagBits) - 1;
 }
@@ -0,0 +1,57 @@
+import java.util.Random;
+
+/**
+ * <p>Checks that inserting into an AVLDictionary costs logarithmic time. 
+ * Random distinct words are inserted into trees of growing sizes, from 10k 
+ * words up to the size given as argument (1M by default), after which the 
+ * invariants of every tree are checked and its height is compared with the 
+ * bound of an AVL Tree, 1.44 log2(n + 2). The average time per insertion is 
+ * printed for each size, and should grow with the logarithm of the size 
+ * rather than with the size itself.</p>
+ *
+ * <p>The program stops with an exception as soon as a tree is invalid.</p>
+ *
+ * @see AVLTree#checkInvariants()
+ */
+public class AVLTreeCheck
+{
+	/**
+	 * Runs the check.
+	 * @param args The largest number of words to be inserted, optionally.
+	 */
+	public static void main(String[] args)
+	{
+		int max = (args.length > 0 ? Integer.parseInt(args[0]) : 1000000);
+		for (int size = 10000 ; size <= max ; size *= 10)
+		{
+			String[] words = AVLTreeCheck.words(size, size);
+			AVLDictionary tree = new AVLDictionary();
+			long start = System.nanoTime();
+			for (String w : words)
+				tree.add(w, "NC");
+			long time = System.nanoTime() - start;
+			tree.checkInvariants();
+			int height = tree.root.height() + 1;
+			double bound = 1.44 * Math.log(size + 2) / Math.log(2);
+			if (height > bound)
+				throw new IllegalStateException("Tree too high: " + height);
+			System.out.println(size + " words: " + (time / size)
+					+ " ns per insertion, height " + height);
+		}
+	}
+	
+	/**
+	 * Creates distinct random words, in random order.
+	 * @param count The number of words.
+	 * @param seed The seed of the random generator.
+	 * @return The words.
+	 */
+	private static String[] words(int count, long seed)
+	{
+		Random random = new Random(seed);
+		String[] words = new String[count];
+		for (int i = 0 ; i < count ; i++)
+			words[i] = Long.toString(random.nextLong() >>> 1, 36) + "_" + i;
+		return words;
+	}
+}
@@ -0,0 +1,77 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * <p>Checks the splits, the packed prefixes and the chain of leaves of a 
+ * BTreeDictionary. Each round adds up to 200k random occurrences to it and 
+ * to an AVLDictionary, in several phases after which the B+ Tree must be 
+ * valid: every node within its capacity and sorted, with exactly the prefix 
+ * its first and last keys share, every separator between the keys of the 
+ * daughters around it, every leaf at the same depth, and the chain of 
+ * leaves linking them all in order. Both Dictionaries must then hold the 
+ * same words, every word added must be found, and random words, most of 
+ * them unknown, must be found in both or in neither.</p>
+ *
+ * <p>The words are drawn so as to fill nodes with keys sharing a long 
+ * prefix, which is then packed once per node, and keys differing only by 
+ * their last characters, by their length, or by characters outside of 
+ * ASCII. New keys thus both extend the packed prefix of a node in place and 
+ * force it to be packed again with a shorter one, and nodes are split at 
+ * every level. The first rounds stay within a single leaf or a few of them. 
+ * The program stops with an exception as soon as a check fails.</p>
+ *
+ * @see BTreeDictionary#checkInvariants()
+ * @see DictionaryEquivalence
+ */
+public class BTreeDictionaryCheck
+{
+	/**
+	 * Runs the check.
+	 * @param args The number of rounds, optionally (20 by default).
+	 */
+	public static void main(String[] args)
+	{
+		int rounds = (args.length > 0 ? Integer.parseInt(args[0]) : 20);
+		String[] tags = { "NC", "V", "DET", "ADJ", "P" };
+		String[] stems = { "", "", "a", "anti", "anticonstitutionnel",
+				"anticonstitutionnellement", "\u00e9t\u00e9" };
+		for (int round = 0 ; round < rounds ; round++)
+		{
+			Random random = new Random(round);
+			AVLDictionary reference = new AVLDictionary();
+			BTreeDictionary tree = new BTreeDictionary();
+			tree.checkInvariants();
+			List<String> added = new ArrayList<String>();
+			int adds = (round < 5 ? random.nextInt(200)
+					: random.nextInt(200000));
+			int phases = 1 + random.nextInt(4);
+			for (int phase = 0 ; phase < phases ; phase++)
+			{
+				for (int i = phase * adds / phases ;
+						i < (phase + 1) * adds / phases ; i++)
+				{
+					String w = DictionaryEquivalence.word(random, stems);
+					String t = tags[random.nextInt(tags.length)];
+					int n = 1 + random.nextInt(3);
+					reference.add(w, t, n);
+					tree.add(w, t, n);
+					added.add(w);
+				}
+				tree.checkInvariants();
+				DictionaryEquivalence.compare(reference, tree);
+				for (String w : added)
+				{
+					Word found = tree.lookup(w);
+					if (found == null || !found.toString().equals(w))
+						throw new IllegalStateException("Missing word " + w
+								+ " in round " + round);
+				}
+				DictionaryEquivalence.compareLookups(reference, tree, random,
+						stems, 5000);
+			}
+			System.out.println("Round " + round + ": " + adds
+					+ " additions in " + phases + " phases");
+		}
+	}
+}
@@ -0,0 +1,56 @@
+import java.util.Random;
+
+/**
+ * <p>Checks that a BulkAVLDictionary holds exactly what an AVLDictionary 
+ * holds after the same additions. Each round adds random occurrences to 
+ * both of them in three phases, the Dictionary being read between phases 
+ * so that the words counted are merged with a tree already built; after 
+ * each phase, both Dictionaries must list the same words in the same order, 
+ * with the same parts of speech ranked in the same order, ties included, 
+ * and the tree must be a valid AVL Tree. Random words are also looked up in 
+ * both, about half of them being unknown.</p>
+ *
+ * <p>The program stops with an exception as soon as a difference is 
+ * found.</p>
+ *
+ * @see BulkAVLDictionary
+ * @see DictionaryEquivalence
+ */
+public class BulkAVLDictionaryCheck
+{
+	/**
+	 * Runs the check.
+	 * @param args The number of rounds, optionally (30 by default).
+	 */
+	public static void main(String[] args)
+	{
+		int rounds = (args.length > 0 ? Integer.parseInt(args[0]) : 30);
+		String[] tags = { "NC", "V", "DET", "ADJ", "P" };
+		String[] stems = { "" };
+		for (int round = 0 ; round < rounds ; round++)
+		{
+			Random random = new Random(round);
+			AVLDictionary reference = new AVLDictionary();
+			BulkAVLDictionary bulk = new BulkAVLDictionary();
+			int adds = (round < 10 ? random.nextInt(50)
+					: random.nextInt(50000));
+			for (int phase = 0 ; phase < 3 ; phase++)
+			{
+				for (int i = 0 ; i < adds ; i++)
+				{
+					String w = DictionaryEquivalence.word(random, stems);
+					String t = tags[random.nextInt(tags.length)];
+					int n = 1 + random.nextInt(3);
+					reference.add(w, t, n);
+					bulk.add(w, t, n);
+				}
+				DictionaryEquivalence.compare(reference, bulk);
+				bulk.checkInvariants();
+				DictionaryEquivalence.compareLookups(reference, bulk, random,
+						stems, 2000);
+			}
+			System.out.println("Round " + round + ": " + (3 * adds)
+					+ " additions");
+		}
+	}
+}
@@ -0,0 +1,100 @@
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * <p>Checks that a ConcurrentDictionary filled by several threads at once 
+ * holds exactly the occurrences a single thread would have counted. A few 
+ * million random tokens, some words being far more frequent than others, 
+ * are added by 1, 2, 4 and 8 threads in turn, each of them adding every 
+ * n-th token; every Word is then compared with the one of an AVLDictionary 
+ * filled by a single thread. The time taken by each number of threads is 
+ * printed, so that the throughput can be compared.</p>
+ *
+ * <p>The order of parts of speech with as many occurrences depends on which 
+ * thread added them first, so only the number of occurrences of each part 
+ * of speech is compared. The program stops with an exception as soon as a 
+ * difference is found.</p>
+ *
+ * @see ConcurrentDictionary
+ */
+public class ConcurrentDictionaryCheck
+{
+	/**
+	 * Runs the check.
+	 * @param args The number of tokens to be added, optionally (4M by 
+	 * default).
+	 * @throws InterruptedException If the check is interrupted.
+	 */
+	public static void main(String[] args) throws InterruptedException
+	{
+		int count = (args.length > 0 ? Integer.parseInt(args[0]) : 4000000);
+		final String[] words = new String[count];
+		final String[] tags = new String[count];
+		Random random = new Random(5);
+		for (int i = 0 ; i < count ; i++)
+		{
+			words[i] = "w" + (int) Math.abs(random.nextGaussian() * 20000);
+			tags[i] = "T" + random.nextInt(5);
+		}
+		AVLDictionary reference = new AVLDictionary();
+		for (int i = 0 ; i < count ; i++)
+			reference.add(words[i], tags[i]);
+		int size = 0;
+		for (Word w : reference)
+			size++;
+		for (int threads = 1 ; threads <= 8 ; threads *= 2)
+		{
+			final ConcurrentDictionary d = new ConcurrentDictionary();
+			final int step = threads;
+			Thread[] workers = new Thread[threads];
+			long start = System.nanoTime();
+			for (int t = 0 ; t < threads ; t++)
+			{
+				final int first = t;
+				workers[t] = new Thread()
+				{
+					@Override
+					public void run()
+					{
+						for (int i = first ; i < words.length ; i += step)
+							d.add(words[i], tags[i]);
+					}
+				};
+				workers[t].start();
+			}
+			for (Thread w : workers)
+				w.join();
+			long time = System.nanoTime() - start;
+			int found = 0;
+			for (Word w : d)
+			{
+				Word expected = reference.lookup(w.toString());
+				if (expected == null || !ConcurrentDictionaryCheck.counts(w)
+						.equals(ConcurrentDictionaryCheck.counts(expected)))
+					throw new IllegalStateException("Wrong occurrences of "
+							+ w + " with " + threads + " threads");
+				found++;
+			}
+			if (found != size)
+				throw new IllegalStateException(found + " words instead of "
+						+ size + " with " + threads + " threads");
+			System.out.println(threads + " threads: " + (time / 1000000)
+					+ " ms");
+		}
+	}
+	
+	/**
+	 * Lists the parts of speech of a Word with their occurrences, in the 
+	 * order of their identifiers.
+	 * @param w The Word.
+	 * @return The parts of speech and occurrences of the Word.
+	 */
+	private static String counts(Word w)
+	{
+		long[] counts = new long[w.size()];
+		for (int i = 0 ; i < w.size() ; i++)
+			counts[i] = ((long) w.tag(i) << 32) | w.occurrences(i);
+		Arrays.sort(counts);
+		return Arrays.toString(counts);
+	}
+}
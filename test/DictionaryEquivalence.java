@@ -0,0 +1,96 @@
+import java.util.Iterator;
+import java.util.Random;
+
+/**
+ * <p>The checks shared by the programs comparing an engine with the "avl" 
+ * one after the same additions: both Dictionaries must list the same words 
+ * in the same order, with the same parts of speech ranked in the same 
+ * order, and agree on which words are known. Random words are drawn so that 
+ * many of them share a prefix, and some of them hold characters outside of 
+ * ASCII.</p>
+ *
+ * @see BulkAVLDictionaryCheck
+ * @see BTreeDictionaryCheck
+ */
+public final class DictionaryEquivalence
+{
+	/**
+	 * This class only has static methods and cannot be instantiated.
+	 */
+	private DictionaryEquivalence()
+	{
+	}
+	
+	/**
+	 * Checks that two Dictionaries list the same words, in the same order, 
+	 * with the same parts of speech ranked in the same order.
+	 * @param expected The reference Dictionary.
+	 * @param actual The Dictionary to be checked.
+	 * @throws IllegalStateException If they differ.
+	 */
+	public static void compare(Dictionary expected, Dictionary actual)
+	{
+		Iterator<Word> i = expected.iterator();
+		Iterator<Word> j = actual.iterator();
+		while (i.hasNext() && j.hasNext())
+		{
+			Word a = i.next();
+			Word b = j.next();
+			boolean same = a.toString().equals(b.toString())
+					&& a.size() == b.size();
+			for (int k = 0 ; same && k < a.size() ; k++)
+				same = a.tag(k) == b.tag(k)
+						&& a.occurrences(k) == b.occurrences(k)
+						&& a.rankByAppearance(k) == b.rankByAppearance(k);
+			if (!same)
+				throw new IllegalStateException("Expected " + a + ", found "
+						+ b);
+		}
+		if (i.hasNext() || j.hasNext())
+			throw new IllegalStateException("Different numbers of words");
+	}
+	
+	/**
+	 * Checks that two Dictionaries agree on which random words are known. 
+	 * Half of the words are lengthened by their first character, so that 
+	 * many of them extend a known word.
+	 * @param expected The reference Dictionary.
+	 * @param actual The Dictionary to be checked.
+	 * @param random The random generator.
+	 * @param stems The stems the words start with.
+	 * @param count The number of words to be looked up.
+	 * @throws IllegalStateException If they disagree on a word.
+	 */
+	public static void compareLookups(Dictionary expected, Dictionary actual,
+			Random random, String[] stems, int count)
+	{
+		for (int i = 0 ; i < count ; i++)
+		{
+			String w = DictionaryEquivalence.word(random, stems);
+			if (random.nextBoolean())
+				w = w + w.charAt(0);
+			if ((expected.lookup(w) == null) != (actual.lookup(w) == null))
+				throw new IllegalStateException("Wrong lookup of " + w);
+		}
+	}
+	
+	/**
+	 * Creates a random word. It starts with one of the given stems, followed 
+	 * by a few letters, most of them among three, and now and then outside 
+	 * of ASCII.
+	 * @param random The random generator.
+	 * @param stems The stems the word may start with, which may be empty.
+	 * @return The word.
+	 */
+	public static String word(Random random, String[] stems)
+	{
+		String letters = (random.nextInt(10) == 0 ? "a\u00e9\u00ffz\u4e00" 
+				: "abc");
+		StringBuilder s = new StringBuilder(stems[random.nextInt(
+				stems.length)]);
+		int length = 1 + random.nextInt(random.nextBoolean() ? 3 : 9);
+		for (int i = 0 ; i < length ; i++)
+			s.append(letters.charAt(random.nextInt(letters.length())));
+		return s.toString();
+	}
+}
@@ -0,0 +1,178 @@
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * <p>Checks that tagging jobs always see a whole model while new ones are 
+ * trained and published in the background through a DictionaryReference. 
+ * Version k of the model holds every word of a fixed vocabulary with k + 1 
+ * occurrences, and is frozen before being published, as the application 
+ * does before tagging. Two threads keep training the version following the 
+ * current one and publishing it with publish(expected, d), while four 
+ * threads keep running jobs: each job takes the current model once, then 
+ * looks up as many words drawn at random from the vocabulary as it holds, 
+ * each of them along with an unknown word.</p>
+ *
+ * <p>Every word of a job must have the occurrences of the version the job 
+ * started with, which must not be older than the one of the previous job of 
+ * the same thread. As a version is only published if the one it was trained 
+ * from is still current, each version must have been published exactly 
+ * once. The program stops with an exception as soon as a check fails, and 
+ * prints the number of jobs run and of publications refused.</p>
+ *
+ * @see DictionaryReference
+ */
+public class DictionaryReferenceCheck
+{
+	/**
+	 * Runs the check.
+	 * @param args The number of versions to be published, optionally (40 by 
+	 * default), then the number of words of the vocabulary (20k by default).
+	 * @throws InterruptedException If the check is interrupted.
+	 */
+	public static void main(String[] args) throws InterruptedException
+	{
+		final int versions = (args.length > 0 ? Integer.parseInt(args[0])
+				: 40);
+		final int size = (args.length > 1 ? Integer.parseInt(args[1])
+				: 20000);
+		final DictionaryReference reference = new DictionaryReference(
+				DictionaryReferenceCheck.train(0, size));
+		final AtomicInteger published = new AtomicInteger();
+		final AtomicInteger refused = new AtomicInteger();
+		final AtomicInteger jobs = new AtomicInteger();
+		final AtomicReference<RuntimeException> failure =
+				new AtomicReference<RuntimeException>();
+		Thread[] trainers = new Thread[2];
+		for (int t = 0 ; t < trainers.length ; t++)
+		{
+			trainers[t] = new Thread()
+			{
+				@Override
+				public void run()
+				{
+					while (true)
+					{
+						Dictionary expected = reference.get();
+						int version = DictionaryReferenceCheck.version(
+								expected);
+						if (version >= versions)
+							return;
+						Dictionary next = DictionaryReferenceCheck.train(
+								version + 1, size);
+						if (reference.publish(expected, next))
+							published.incrementAndGet();
+						else
+							refused.incrementAndGet();
+					}
+				}
+			};
+		}
+		final Thread[] taggers = new Thread[4];
+		for (int t = 0 ; t < taggers.length ; t++)
+		{
+			final long seed = t;
+			taggers[t] = new Thread()
+			{
+				@Override
+				public void run()
+				{
+					Random random = new Random(seed);
+					int last = 0;
+					try
+					{
+						while (!this.isInterrupted())
+						{
+							Dictionary d = reference.get();
+							int version = DictionaryReferenceCheck.version(
+									d);
+							if (version < last)
+								throw new IllegalStateException("Version "
+										+ version + " seen after version "
+										+ last);
+							DictionaryReferenceCheck.tag(d, version, size,
+									random);
+							last = version;
+							jobs.incrementAndGet();
+						}
+					}
+					catch (RuntimeException e)
+					{
+						failure.compareAndSet(null, e);
+					}
+				}
+			};
+		}
+		long start = System.nanoTime();
+		for (Thread t : taggers)
+			t.start();
+		for (Thread t : trainers)
+			t.start();
+		for (Thread t : trainers)
+			t.join();
+		for (Thread t : taggers)
+			t.interrupt();
+		for (Thread t : taggers)
+			t.join();
+		long time = System.nanoTime() - start;
+		if (failure.get() != null)
+			throw failure.get();
+		int version = DictionaryReferenceCheck.version(reference.get());
+		if (version != versions || published.get() != versions)
+			throw new IllegalStateException(published.get()
+					+ " versions published, up to version " + version
+					+ ", instead of " + versions);
+		System.out.println(versions + " versions published, "
+				+ refused.get() + " publications refused, " + jobs.get()
+				+ " jobs run in " + (time / 1000000) + " ms");
+	}
+	
+	/**
+	 * Runs a tagging job, which looks up as many words drawn at random from 
+	 * the vocabulary as it holds, each of them along with an unknown word.
+	 * @param d The model of the job.
+	 * @param version The version of the model.
+	 * @param size The number of words of the vocabulary.
+	 * @param random The random generator.
+	 * @throws IllegalStateException If a word is not the one of the version.
+	 */
+	private static void tag(Dictionary d, int version, int size,
+			Random random)
+	{
+		for (int i = 0 ; i < size ; i++)
+		{
+			int k = random.nextInt(size);
+			Word w = d.lookup("w" + k);
+			if (w == null || w.occurrences(0) != version + 1)
+				throw new IllegalStateException("Word w" + k + " is " + w
+						+ " in version " + version);
+			if (d.lookup("x" + k) != null)
+				throw new IllegalStateException("Unknown word x" + k
+						+ " found in version " + version);
+		}
+	}
+	
+	/**
+	 * Trains a version of the model.
+	 * @param version The version of the model.
+	 * @param size The number of words of the vocabulary.
+	 * @return The model, frozen.
+	 */
+	private static Dictionary train(int version, int size)
+	{
+		AVLDictionary d = new AVLDictionary();
+		for (int i = 0 ; i < size ; i++)
+			d.add("w" + i, "T" + (i % 5), version + 1);
+		return new FrozenDictionary(d);
+	}
+	
+	/**
+	 * Returns the version of a model.
+	 * @param d The model.
+	 * @return The version of the model.
+	 */
+	private static int version(Dictionary d)
+	{
+		return d.lookup("w0").occurrences(0) - 1;
+	}
+}
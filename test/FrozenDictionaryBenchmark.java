@@ -0,0 +1,103 @@
+import java.util.Random;
+
+/**
+ * <p>Compares the time taken to look words up in an AVLDictionary with the 
+ * time taken in FrozenDictionary copies of it, laid out either balanced or 
+ * weighted by occurrences. The vocabulary is made of random words, the 
+ * occurrences of which follow Zipf's law. Every word of the vocabulary is 
+ * looked up once along with as many unknown words, all of them shuffled, 
+ * and the time per hit and per miss is printed for each Dictionary. All of 
+ * them must find the same Words.</p>
+ *
+ * <p>As every word is looked up once whatever its occurrences, the weighted 
+ * layout gains nothing here from putting frequent words first; it only pays 
+ * off when frequent words are also looked up more often, as in a corpus.</p>
+ *
+ * @see FrozenDictionary
+ */
+public class FrozenDictionaryBenchmark
+{
+	/**
+	 * Runs the benchmark.
+	 * @param args The number of words of the vocabulary, optionally (100k by 
+	 * default).
+	 */
+	public static void main(String[] args)
+	{
+		int size = (args.length > 0 ? Integer.parseInt(args[0]) : 100000);
+		Random random = new Random(7);
+		AVLDictionary avl = new AVLDictionary();
+		String[] queries = new String[2 * size];
+		for (int i = 0 ; i < size ; i++)
+		{
+			queries[i] = Long.toString(random.nextLong() >>> 1, 36);
+			avl.add(queries[i], "NC", size / (i + 1));
+			avl.add(queries[i], "V");
+			queries[size + i] = queries[i] + "_";
+		}
+		for (int i = queries.length - 1 ; i > 0 ; i--)
+		{
+			int j = random.nextInt(i + 1);
+			String s = queries[i];
+			queries[i] = queries[j];
+			queries[j] = s;
+		}
+		int[] expected = new int[queries.length];
+		for (int i = 0 ; i < queries.length ; i++)
+		{
+			Word w = avl.lookup(queries[i]);
+			expected[i] = (w == null ? 0 : w.occurrences(0));
+		}
+		Dictionary[] dictionaries = { avl, new FrozenDictionary(avl, false),
+				new FrozenDictionary(avl, true) };
+		String[] names = { "avl", "frozen", "frozen weighted" };
+		for (int round = 0 ; round < 5 ; round++)
+		{
+			StringBuilder s = new StringBuilder();
+			for (int k = 0 ; k < dictionaries.length ; k++)
+			{
+				long[] time = FrozenDictionaryBenchmark.lookup(
+						dictionaries[k], queries, expected);
+				s.append(k == 0 ? "" : "; ").append(names[k]).append(' ')
+						.append(time[0] / Math.max(time[2], 1))
+						.append(" ns per hit, ")
+						.append(time[1] / Math.max(queries.length - time[2], 1))
+						.append(" ns per miss");
+			}
+			System.out.println(s);
+		}
+	}
+	
+	/**
+	 * Looks every query up in a Dictionary.
+	 * @param d The Dictionary to be timed.
+	 * @param queries The words to be looked up.
+	 * @param expected The occurrences of the best part of speech of each 
+	 * query, or 0 if it is unknown.
+	 * @return The time spent on hits, the time spent on misses, in 
+	 * nanoseconds, then the number of hits.
+	 * @throws IllegalStateException If a query is not found as expected.
+	 */
+	private static long[] lookup(Dictionary d, String[] queries,
+			int[] expected)
+	{
+		long[] time = new long[3];
+		for (int i = 0 ; i < queries.length ; i++)
+		{
+			long start = System.nanoTime();
+			Word w = d.lookup(queries[i]);
+			long elapsed = System.nanoTime() - start;
+			if ((w == null ? 0 : w.occurrences(0)) != expected[i])
+				throw new IllegalStateException("Wrong lookup of "
+						+ queries[i]);
+			if (w == null)
+				time[1] += elapsed;
+			else
+			{
+				time[0] += elapsed;
+				time[2]++;
+			}
+		}
+		return time;
+	}
+}
@@ -0,0 +1,126 @@
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+/**
+ * <p>Compares the time taken to look a word up in an AVLDictionary through 
+ * find(), which throws an exception for unknown words, and through lookup(), 
+ * which returns null. A dictionary of random words is built, then words 
+ * known and unknown are looked up in random order with both methods, the 
+ * time per hit and per miss being printed for each of them. Both methods 
+ * must agree on every word.</p>
+ *
+ * <p>Misses are where both methods differ: each of them costs an exception 
+ * with find(), as it used to when tagging unknown words.</p>
+ *
+ * @see AVLTree#lookup(String)
+ * @see AVLTree#find(String)
+ */
+public class LookupBenchmark
+{
+	/**
+	 * Runs the benchmark.
+	 * @param args The number of words in the dictionary, optionally (100k by 
+	 * default), then the proportion of unknown words looked up, in percent 
+	 * (50 by default).
+	 */
+	public static void main(String[] args)
+	{
+		int size = (args.length > 0 ? Integer.parseInt(args[0]) : 100000);
+		int misses = (args.length > 1 ? Integer.parseInt(args[1]) : 50);
+		Random random = new Random(3);
+		AVLDictionary d = new AVLDictionary();
+		String[] known = new String[size];
+		for (int i = 0 ; i < size ; i++)
+		{
+			known[i] = Long.toString(random.nextLong() >>> 1, 36);
+			d.add(known[i], "NC");
+		}
+		int count = 1000000;
+		String[] queries = new String[count];
+		boolean[] hits = new boolean[count];
+		for (int i = 0 ; i < count ; i++)
+		{
+			hits[i] = (random.nextInt(100) >= misses);
+			queries[i] = (hits[i] ? known[random.nextInt(size)]
+					: Long.toString(random.nextLong() >>> 1, 36) + "_");
+		}
+		for (int round = 0 ; round < 5 ; round++)
+		{
+			long[] found = LookupBenchmark.find(d, queries, hits);
+			long[] looked = LookupBenchmark.lookup(d, queries, hits);
+			if (found[0] != looked[0])
+				throw new IllegalStateException("Methods disagree: "
+						+ found[0] + " words found by find(), " + looked[0]
+						+ " by lookup()");
+			long h = found[0];
+			long m = count - h;
+			System.out.println(h + " hits, " + m + " misses: find() "
+					+ (found[1] / Math.max(h, 1)) + " ns per hit, "
+					+ (found[2] / Math.max(m, 1)) + " ns per miss; lookup() "
+					+ (looked[1] / Math.max(h, 1)) + " ns per hit, "
+					+ (looked[2] / Math.max(m, 1)) + " ns per miss");
+		}
+	}
+	
+	/**
+	 * Looks every query up through find().
+	 * @param d The dictionary.
+	 * @param queries The words to be looked up.
+	 * @param hits Whether each word is known.
+	 * @return The number of words found, then the time spent on hits and 
+	 * the time spent on misses, in nanoseconds.
+	 */
+	private static long[] find(Dictionary d, String[] queries, boolean[] hits)
+	{
+		long found = 0;
+		long[] time = new long[2];
+		for (int i = 0 ; i < queries.length ; i++)
+		{
+			long start = System.nanoTime();
+			boolean hit;
+			try
+			{
+				d.find(queries[i]);
+				hit = true;
+			}
+			catch (NoSuchElementException e)
+			{
+				hit = false;
+			}
+			time[hits[i] ? 0 : 1] += System.nanoTime() - start;
+			if (hit != hits[i])
+				throw new IllegalStateException("Wrong find() of "
+						+ queries[i]);
+			if (hit)
+				found++;
+		}
+		return new long[] { found, time[0], time[1] };
+	}
+	
+	/**
+	 * Looks every query up through lookup().
+	 * @param d The dictionary.
+	 * @param queries The words to be looked up.
+	 * @param hits Whether each word is known.
+	 * @return The number of words found, then the time spent on hits and 
+	 * the time spent on misses, in nanoseconds.
+	 */
+	private static long[] lookup(Dictionary d, String[] queries,
+			boolean[] hits)
+	{
+		long found = 0;
+		long[] time = new long[2];
+		for (int i = 0 ; i < queries.length ; i++)
+		{
+			long start = System.nanoTime();
+			boolean hit = (d.lookup(queries[i]) != null);
+			time[hits[i] ? 0 : 1] += System.nanoTime() - start;
+			if (hit != hits[i])
+				throw new IllegalStateException("Wrong lookup() of "
+						+ queries[i]);
+			if (hit)
+				found++;
+		}
+		return new long[] { found, time[0], time[1] };
+	}
+}
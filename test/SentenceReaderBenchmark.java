@@ -0,0 +1,128 @@
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * <p>Compares the time SentenceReader takes to parse a corpus with the time 
+ * taken by decoding each line and splitting it with String.split, as the 
+ * application used to. Both readers go through every token of the file a 
+ * few times; a checksum of the words and parts of speech each of them reads 
+ * is compared, so that the program stops with an exception if they do not 
+ * read the same tokens.</p>
+ *
+ * <p>The corpus is the training corpus of the working directory unless a 
+ * path is given as argument. A corpus of about 1 GB, such as the training 
+ * corpus repeated a few thousand times, spans several mapping windows.</p>
+ *
+ * @see SentenceReader
+ */
+public class SentenceReaderBenchmark
+{
+	/**
+	 * Runs the benchmark.
+	 * @param args The path of the corpus, optionally.
+	 * @throws IOException If the corpus cannot be read.
+	 */
+	public static void main(String[] args) throws IOException
+	{
+		File target = new File(args.length > 0 ? args[0]
+				: "Corpus_train.project.java+algo.2013.txt");
+		for (int round = 0 ; round < 3 ; round++)
+		{
+			long start = System.nanoTime();
+			long[] split = SentenceReaderBenchmark.split(target);
+			long middle = System.nanoTime();
+			long[] mapped = SentenceReaderBenchmark.mapped(target);
+			long end = System.nanoTime();
+			if (split[0] != mapped[0] || split[1] != mapped[1])
+				throw new IllegalStateException("Readers disagree: "
+						+ split[0] + " tokens read by String.split, "
+						+ mapped[0] + " by SentenceReader");
+			System.out.println(split[0] + " tokens: String.split "
+					+ ((middle - start) / 1000000) + " ms, SentenceReader "
+					+ ((end - middle) / 1000000) + " ms");
+		}
+	}
+	
+	/**
+	 * Reads every token of a corpus through SentenceReader.
+	 * @param target The corpus file.
+	 * @return The number of tokens, then a checksum of the tokens.
+	 * @throws IOException If the corpus cannot be read.
+	 */
+	private static long[] mapped(File target) throws IOException
+	{
+		long count = 0;
+		long sum = 0;
+		SentenceReader r = new SentenceReader(target);
+		try
+		{
+			while (r.hasNext())
+			{
+				Sentence s = r.next();
+				while (!s.isEmpty())
+				{
+					Entry e = s.pop();
+					sum = SentenceReaderBenchmark.checksum(sum, e.value(),
+							e.partOfSpeech());
+					count++;
+				}
+				sum = 31 * sum + 1;
+			}
+		}
+		finally
+		{
+			r.close();
+		}
+		return new long[] { count, sum };
+	}
+	
+	/**
+	 * Reads every token of a corpus by decoding each line and splitting it 
+	 * with String.split, as the application used to.
+	 * @param target The corpus file.
+	 * @return The number of tokens, then a checksum of the tokens.
+	 * @throws IOException If the corpus cannot be read.
+	 */
+	private static long[] split(File target) throws IOException
+	{
+		long count = 0;
+		long sum = 0;
+		BufferedReader r = new BufferedReader(new InputStreamReader(
+				new FileInputStream(target), StandardCharsets.UTF_8));
+		try
+		{
+			String l;
+			while ((l = r.readLine()) != null)
+			{
+				for (String s : l.split(" "))
+				{
+					String[] w = s.split("__");
+					sum = SentenceReaderBenchmark.checksum(sum, w[0], w[1]);
+					count++;
+				}
+				sum = 31 * sum + 1;
+			}
+		}
+		finally
+		{
+			r.close();
+		}
+		return new long[] { count, sum };
+	}
+	
+	/**
+	 * Adds a token to a checksum.
+	 * @param sum The checksum of the previous tokens.
+	 * @param word The word of the token.
+	 * @param pos The part of speech of the token.
+	 * @return The checksum including the token.
+	 */
+	private static long checksum(long sum, String word, String pos)
+	{
+		return (31 * sum + word.hashCode()) * 31 + pos.hashCode();
+	}
+}